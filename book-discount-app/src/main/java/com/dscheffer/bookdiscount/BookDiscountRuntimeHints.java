@@ -0,0 +1,47 @@
+package com.dscheffer.bookdiscount;
+
+import com.dscheffer.bookdiscount.dto.Book;
+import com.dscheffer.bookdiscount.entity.BookEntity;
+import com.dscheffer.bookdiscount.entity.BookEntityListener;
+import com.dscheffer.bookdiscount.entity.DiscountTierEntity;
+import liquibase.change.AddColumnConfig;
+import liquibase.change.ColumnConfig;
+import liquibase.change.ConstraintsConfig;
+import liquibase.change.core.AddColumnChange;
+import liquibase.change.core.AddNotNullConstraintChange;
+import liquibase.change.core.AddUniqueConstraintChange;
+import liquibase.change.core.CreateIndexChange;
+import liquibase.change.core.CreateTableChange;
+import liquibase.change.core.InsertDataChange;
+import liquibase.change.core.ModifyDataTypeChange;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import java.util.List;
+
+/**
+ * Reflection and resource hints for a native image that the AOT processing cannot derive from the bean definitions:
+ * the change logs and the Liquibase changes they use, which are populated by reflection, and the JPA entities, their
+ * listener and the book projection, which Hibernate instantiates itself.
+ */
+class BookDiscountRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        hints.resources()
+                .registerPattern("db/changelog/*.xml")
+                .registerPattern("www.liquibase.org/xml/ns/dbchangelog/*.xsd")
+                .registerPattern("liquibase.build.properties")
+                .registerResourceBundle("liquibase/i18n/liquibase-core");
+        List.of(BookEntity.class, DiscountTierEntity.class, BookEntityListener.class)
+                .forEach(type -> hints.reflection().registerType(type, MemberCategory.values()));
+        hints.reflection().registerType(Book.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        List.of(
+                CreateTableChange.class, AddColumnChange.class, CreateIndexChange.class, InsertDataChange.class,
+                AddUniqueConstraintChange.class, ModifyDataTypeChange.class, AddNotNullConstraintChange.class,
+                ColumnConfig.class, AddColumnConfig.class, ConstraintsConfig.class
+        ).forEach(type -> hints.reflection().registerType(type,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS));
+    }
+}
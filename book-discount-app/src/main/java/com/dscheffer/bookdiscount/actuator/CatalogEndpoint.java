@@ -0,0 +1,39 @@
+package com.dscheffer.bookdiscount.actuator;
+
+import com.dscheffer.bookdiscount.service.catalog.BookCatalog;
+import com.dscheffer.bookdiscount.service.catalog.CatalogSnapshot;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "catalog")
+public class CatalogEndpoint {
+
+    private final BookCatalog bookCatalog;
+
+    @ReadOperation
+    public CatalogInfo catalog() {
+        return CatalogInfo.of(bookCatalog.snapshot());
+    }
+
+    @WriteOperation
+    public CatalogInfo reload() {
+        return CatalogInfo.of(bookCatalog.refresh());
+    }
+
+    /**
+     * @param fingerprint the ETag of {@code /api/books}
+     */
+    public record CatalogInfo(long version, String fingerprint, int books, Instant loadedAt) {
+
+        static CatalogInfo of(CatalogSnapshot snapshot) {
+            return new CatalogInfo(snapshot.version(), snapshot.fingerprint(), snapshot.size(), snapshot.loadedAt());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.dscheffer.bookdiscount.actuator;
+
+import com.dscheffer.bookdiscount.service.catalog.DiscountTierTable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "discounttiers")
+public class DiscountTiersEndpoint {
+
+    private final DiscountTierTable discountTierTable;
+
+    @ReadOperation
+    public Map<Integer, BigDecimal> discountTiers() {
+        return discountTierTable.discountTiers().factors();
+    }
+
+    @WriteOperation
+    public Map<Integer, BigDecimal> reload() {
+        return discountTierTable.reload().factors();
+    }
+}
@@ -0,0 +1,29 @@
+package com.dscheffer.bookdiscount.actuator;
+
+import com.dscheffer.bookdiscount.service.warmup.PricingWarmUp;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Out of service while the pricing warm-up is running. Part of the readiness group, so no traffic is routed to the
+ * instance before its hot path is compiled.
+ */
+@Component
+@RequiredArgsConstructor
+public class WarmUpHealthIndicator implements HealthIndicator {
+
+    private final PricingWarmUp pricingWarmUp;
+
+    @Override
+    public Health health() {
+        var report = pricingWarmUp.report();
+        return (report.state().isFinished() ? Health.up() : Health.outOfService())
+                .withDetail("state", report.state())
+                .withDetail("catalogLoads", report.catalogLoads())
+                .withDetail("cartsPriced", report.cartsPriced())
+                .withDetail("durationMillis", report.duration().toMillis())
+                .build();
+    }
+}
@@ -1,13 +1,33 @@
 package com.dscheffer.bookdiscount.controller;
 
 import com.dscheffer.bookdiscount.dto.Book;
+import com.dscheffer.bookdiscount.dto.BookPage;
+import com.dscheffer.bookdiscount.dto.CatalogImportResult;
 import com.dscheffer.bookdiscount.service.BookServiceImpl;
+import com.dscheffer.bookdiscount.service.CatalogImportRunningException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @Controller
@@ -15,11 +35,82 @@ import java.util.List;
 @RequestMapping(value = "/api/books")
 public class BookController {
 
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final BookServiceImpl bookService;
 
+    private final ObjectMapper objectMapper;
+
+    /**
+     * All books, or one page of them if {@code after} or {@code limit} is given. The link to the next page is sent in
+     * a {@code Link} header, so the body stays a plain list. The ETag is the catalog fingerprint, which lets
+     * clients revalidate with {@code If-None-Match} and get a 304 as long as the catalog has not changed, also across
+     * refreshes, restarts and instances.
+     */
     @GetMapping
-    public ResponseEntity<List<Book>> getBooks() {
-        return ResponseEntity.ok(bookService.getAllBooks());
+    public ResponseEntity<List<Book>> getBooks(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit
+    ) {
+        if (after == null && limit == null) {
+            var all = bookService.getAllBooks();
+            return cacheable(HttpStatus.OK, all).body(all.books());
+        }
+        var page = bookService.getBooks(
+                after == null ? Long.MIN_VALUE : after,
+                limit == null ? DEFAULT_PAGE_SIZE : Math.clamp(limit, 1, MAX_PAGE_SIZE)
+        );
+        var response = cacheable(HttpStatus.OK, page);
+        if (page.nextAfterId() != null) {
+            var next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", page.nextAfterId())
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(page.books());
+    }
+
+    /**
+     * All books as newline delimited JSON, written to the response one by one instead of as a single document.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamBooks(WebRequest request) {
+        var page = bookService.getAllBooks();
+        if (request.checkNotModified(page.catalogFingerprint())) {
+            return cacheable(HttpStatus.NOT_MODIFIED, page).build();
+        }
+        return cacheable(HttpStatus.OK, page).body(out -> {
+            // without a flush per book the response goes out in chunks of the server's buffer size
+            var writer = objectMapper.writer()
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .withRootValueSeparator("\n");
+            try (var books = writer.writeValues(out)) {
+                books.writeAll(page.books());
+            }
+        });
+    }
+
+    /**
+     * Streams a CSV file with the columns {@code name,price[,series]} into the catalog, see
+     * {@link com.dscheffer.bookdiscount.service.catalog.CatalogImport}.
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<CatalogImportResult> importBooks(InputStream body) throws IOException {
+        return ResponseEntity.ok(bookService.importBooks(new InputStreamReader(body, StandardCharsets.UTF_8)));
+    }
+
+    @ExceptionHandler(CatalogImportRunningException.class)
+    public ResponseEntity<ProblemDetail> handleImportRunning(CatalogImportRunningException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, e.getMessage()));
+    }
+
+    // no-cache still lets clients store the books, they just have to revalidate them on every use
+    private static ResponseEntity.BodyBuilder cacheable(HttpStatus status, BookPage page) {
+        return ResponseEntity.status(status)
+                .eTag(page.catalogFingerprint())
+                .cacheControl(CacheControl.noCache());
     }
 
 }
@@ -0,0 +1,73 @@
+package com.dscheffer.bookdiscount.controller;
+
+import com.dscheffer.bookdiscount.dto.CartSessionState;
+import com.dscheffer.bookdiscount.dto.ShoppingCart;
+import com.dscheffer.bookdiscount.dto.ShoppingCartItem;
+import com.dscheffer.bookdiscount.service.CartSessionService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+@Controller
+@RequiredArgsConstructor
+@RequestMapping(value = "/api/cart-sessions")
+public class CartSessionController {
+
+    private final CartSessionService cartSessionService;
+
+    @PostMapping
+    public ResponseEntity<CartSessionState> createCartSession(
+            @RequestBody ShoppingCart cart
+    ) {
+        var state = cartSessionService.create(cart.toBookQuantities());
+        var location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(state.id()).toUri();
+        return ResponseEntity.created(location).body(state);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<CartSessionState> getCartSession(@PathVariable String id) {
+        return ResponseEntity.of(cartSessionService.get(id));
+    }
+
+    @PostMapping("/{id}/add")
+    public ResponseEntity<CartSessionState> addItem(
+            @PathVariable String id,
+            @Valid @RequestBody ShoppingCartItem item
+    ) {
+        return ResponseEntity.of(cartSessionService.changeQuantity(id, item.getBookId(), item.getQuantity()));
+    }
+
+    @PostMapping("/{id}/remove")
+    public ResponseEntity<CartSessionState> removeItem(
+            @PathVariable String id,
+            @Valid @RequestBody ShoppingCartItem item
+    ) {
+        return ResponseEntity.of(cartSessionService.changeQuantity(id, item.getBookId(), -item.getQuantity()));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteCartSession(@PathVariable String id) {
+        return cartSessionService.delete(id) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Unknown books and quantities too large for the cart leave the session unchanged.
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ProblemDetail> handleInvalidChange(IllegalArgumentException e) {
+        return ResponseEntity.badRequest()
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage()));
+    }
+
+}
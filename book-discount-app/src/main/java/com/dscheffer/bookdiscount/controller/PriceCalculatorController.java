@@ -1,7 +1,12 @@
 package com.dscheffer.bookdiscount.controller;
 
-import com.dscheffer.bookdiscount.dto.ShoppingCartItem;
+import com.dscheffer.bookdiscount.dto.CartAdditions;
+import com.dscheffer.bookdiscount.dto.CartPrice;
+import com.dscheffer.bookdiscount.dto.ShoppingCart;
 import com.dscheffer.bookdiscount.service.PriceCalculatorService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -9,26 +14,97 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Controller
 @RequiredArgsConstructor
 @RequestMapping(value = "/api/price/calculate")
 public class PriceCalculatorController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final PriceCalculatorService priceCalculatorService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ResponseEntity<BigDecimal> calculateShoppingCardPrice(
-            @RequestBody List<ShoppingCartItem> items
+            @RequestBody ShoppingCart cart
     ) {
-        var price = priceCalculatorService.calculatePrice(
-                items.stream().collect(Collectors.toMap(ShoppingCartItem::getBookId, ShoppingCartItem::getQuantity))
-        );
+        var price = priceCalculatorService.calculatePrice(cart);
         return ResponseEntity.ok(price);
     }
 
+    /**
+     * Prices the cart and the carts with one more copy of a book of a series in the cart, the biggest saving first.
+     */
+    @PostMapping("/additions")
+    public ResponseEntity<CartAdditions> calculateShoppingCartAdditions(
+            @RequestBody ShoppingCart cart
+    ) {
+        return ResponseEntity.ok(priceCalculatorService.calculateAdditions(cart));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<CartPrice>> calculateShoppingCartPrices(
+            @RequestBody List<ShoppingCart> carts
+    ) {
+        return ResponseEntity.ok(priceCalculatorService.calculateCartPrices(carts));
+    }
+
+    /**
+     * Reads one cart per line and writes one {@link CartPrice} per line in the same order, never holding more than
+     * a bounded number of carts in memory.
+     */
+    @PostMapping(value = "/stream", consumes = NDJSON, produces = NDJSON)
+    public void calculateShoppingCartPriceStream(
+            InputStream body,
+            HttpServletResponse response
+    ) throws IOException {
+        response.setContentType(NDJSON);
+        var reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        var output = new BufferedOutputStream(response.getOutputStream());
+        var lines = reader.lines().filter(line -> !line.isBlank()).iterator();
+        // parses in next() rather than in a stream map, so that an invalid line fails only its own cart
+        var carts = new Iterator<ShoppingCart>() {
+            @Override
+            public boolean hasNext() {
+                return lines.hasNext();
+            }
+
+            @Override
+            public ShoppingCart next() {
+                return readCart(lines.next());
+            }
+        };
+        priceCalculatorService.calculateCartPrices(carts, price -> writeLine(output, price));
+        output.flush();
+    }
+
+    private ShoppingCart readCart(String line) {
+        try {
+            return objectMapper.readValue(line, ShoppingCart.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid cart: " + e.getOriginalMessage());
+        }
+    }
+
+    private void writeLine(OutputStream output, CartPrice price) {
+        try {
+            output.write(objectMapper.writeValueAsBytes(price));
+            output.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
 }
@@ -0,0 +1,33 @@
+package com.dscheffer.bookdiscount.controller;
+
+import com.dscheffer.bookdiscount.service.PricingBudgetExceededException;
+import com.dscheffer.bookdiscount.service.PricingRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Maps carts the pricing admission control refused to price. A rejected cart can be retried later, one that exceeded
+ * the time budget cannot.
+ */
+@RestControllerAdvice
+public class PricingExceptionHandler {
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    @ExceptionHandler(PricingRejectedException.class)
+    public ResponseEntity<ProblemDetail> handleRejected(PricingRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage()));
+    }
+
+    @ExceptionHandler(PricingBudgetExceededException.class)
+    public ResponseEntity<ProblemDetail> handleBudgetExceeded(PricingBudgetExceededException e) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage()));
+    }
+}
@@ -0,0 +1,67 @@
+package com.dscheffer.bookdiscount.dto;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+/**
+ * Reads a cart in the format of a list of {@link ShoppingCartItem}s straight into a {@link ShoppingCart}, adding up
+ * the quantities of items with the same book ID.
+ */
+@JsonComponent
+public class ShoppingCartDeserializer extends JsonDeserializer<ShoppingCart> {
+
+    @Override
+    public ShoppingCart deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if (!parser.isExpectedStartArrayToken()) {
+            return (ShoppingCart) context.handleUnexpectedToken(ShoppingCart.class, parser);
+        }
+
+        var cart = new ShoppingCart.Builder();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            long bookId = 0;
+            int quantity = 0;
+            boolean hasBookId = false;
+            boolean hasQuantity = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "bookId" -> {
+                        bookId = parser.hasToken(JsonToken.VALUE_NUMBER_INT)
+                                ? parser.getLongValue()
+                                : required(context.readValue(parser, Long.class), context, field);
+                        hasBookId = true;
+                    }
+                    case "quantity" -> {
+                        quantity = parser.hasToken(JsonToken.VALUE_NUMBER_INT)
+                                ? parser.getIntValue()
+                                : required(context.readValue(parser, Integer.class), context, field);
+                        hasQuantity = true;
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+            if (!hasBookId || !hasQuantity) {
+                return context.reportInputMismatch(ShoppingCart.class,
+                        "Cart item without %s", hasBookId ? "quantity" : "bookId");
+            }
+            cart.add(bookId, quantity);
+        }
+        if (!parser.hasToken(JsonToken.END_ARRAY)) {
+            return (ShoppingCart) context.handleUnexpectedToken(ShoppingCart.class, parser);
+        }
+        return cart.build();
+    }
+
+    private static <T> T required(T value, DeserializationContext context, String field) throws IOException {
+        if (value == null) {
+            return context.reportInputMismatch(ShoppingCart.class, "Cart item without %s", field);
+        }
+        return value;
+    }
+}
@@ -1,9 +1,14 @@
 package com.dscheffer.bookdiscount.dto;
 
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import lombok.Data;
 
 @Data
 public class ShoppingCartItem {
+    @NotNull
     private Long bookId;
+    @NotNull
+    @Positive
     private Integer quantity;
 }
@@ -0,0 +1,51 @@
+package com.dscheffer.bookdiscount.benchmark;
+
+import com.dscheffer.bookdiscount.service.PriceCalculatorServiceImpl;
+import com.dscheffer.bookdiscount.service.engine.OptimalPriceCalculationEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the grouping solver with the memoized search of the optimal engine on the same carts. The search is
+ * exponential in the number of titles, so the carts are smaller than in {@link OptimalEngineBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MixedPriceEngineBenchmark {
+
+    @Param({"3", "5", "6"})
+    int distinctTitles;
+
+    @Param({"1", "3", "5", "8"})
+    int copiesPerTitle;
+
+    @Param({"UNIFORM", "SKEWED"})
+    QuantityDistribution distribution;
+
+    @Param({"EQUAL", "MIXED"})
+    PriceDistribution prices;
+
+    PriceCalculatorServiceImpl priceCalculatorService;
+
+    Map<Long, Integer> cart;
+
+    @Setup
+    public void setup() {
+        priceCalculatorService = PricingFixture.priceCalculatorService(
+                new OptimalPriceCalculationEngine(), distinctTitles, prices
+        );
+        cart = PricingFixture.cart(distinctTitles, copiesPerTitle, distribution);
+    }
+
+    @Benchmark
+    public BigDecimal calculatePrice() {
+        return priceCalculatorService.calculatePrice(cart);
+    }
+}
@@ -0,0 +1,46 @@
+package com.dscheffer.bookdiscount.benchmark;
+
+import com.dscheffer.bookdiscount.service.PriceCalculatorServiceImpl;
+import com.dscheffer.bookdiscount.service.engine.OptimalPriceCalculationEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wholesale-sized carts at one unit price, which the optimal engine solves with the grouping solver. Carts mixing
+ * unit prices are measured by {@link MixedPriceEngineBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OptimalEngineBenchmark {
+
+    @Param({"1", "3", "5", "8", "20"})
+    int distinctTitles;
+
+    @Param({"1", "5", "20", "100"})
+    int copiesPerTitle;
+
+    @Param({"UNIFORM", "SKEWED"})
+    QuantityDistribution distribution;
+
+    PriceCalculatorServiceImpl priceCalculatorService;
+
+    Map<Long, Integer> cart;
+
+    @Setup
+    public void setup() {
+        priceCalculatorService = PricingFixture.priceCalculatorService(new OptimalPriceCalculationEngine(), distinctTitles);
+        cart = PricingFixture.cart(distinctTitles, copiesPerTitle, distribution);
+    }
+
+    @Benchmark
+    public BigDecimal calculatePrice() {
+        return priceCalculatorService.calculatePrice(cart);
+    }
+}
@@ -0,0 +1,67 @@
+package com.dscheffer.bookdiscount.benchmark;
+
+import com.dscheffer.bookdiscount.service.PriceCalculatorServiceImpl;
+import com.dscheffer.bookdiscount.service.engine.OptimalPriceCalculationEngine;
+import com.dscheffer.bookdiscount.service.engine.ParallelPriceCalculationEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the parallel engine scales with its pool size on large mixed-price carts, against the sequential
+ * search of the optimal engine on the same carts. Only meaningful on a machine with at least as many cores as the
+ * largest pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelEngineBenchmark {
+
+    // 0 runs the optimal engine as the sequential baseline
+    @Param({"0", "1", "2", "4"})
+    int parallelism;
+
+    @Param({"5", "6"})
+    int distinctTitles;
+
+    @Param({"8", "12"})
+    int copiesPerTitle;
+
+    @Param({"UNIFORM", "SKEWED"})
+    QuantityDistribution distribution;
+
+    ParallelPriceCalculationEngine parallelEngine;
+
+    PriceCalculatorServiceImpl priceCalculatorService;
+
+    Map<Long, Integer> cart;
+
+    @Setup
+    public void setup() {
+        if (parallelism > 0) {
+            parallelEngine = new ParallelPriceCalculationEngine(parallelism);
+        }
+        priceCalculatorService = PricingFixture.priceCalculatorService(
+                parallelEngine != null ? parallelEngine : new OptimalPriceCalculationEngine(), distinctTitles,
+                PriceDistribution.MIXED
+        );
+        cart = PricingFixture.cart(distinctTitles, copiesPerTitle, distribution);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (parallelEngine != null) {
+            parallelEngine.shutdown();
+        }
+    }
+
+    @Benchmark
+    public BigDecimal calculatePrice() {
+        return priceCalculatorService.calculatePrice(cart);
+    }
+}
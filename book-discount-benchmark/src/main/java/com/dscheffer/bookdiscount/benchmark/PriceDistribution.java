@@ -0,0 +1,34 @@
+package com.dscheffer.bookdiscount.benchmark;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Unit prices of the benchmarked books. Carts at one unit price are solved by the grouping solver, carts mixing unit
+ * prices by the memoized search.
+ */
+public enum PriceDistribution {
+
+    /**
+     * Every book costs 8.00.
+     */
+    EQUAL(List.of(new BigDecimal("8.00"))),
+
+    /**
+     * Book prices cycle through five different prices.
+     */
+    MIXED(List.of(
+            new BigDecimal("8.00"), new BigDecimal("9.50"), new BigDecimal("12.99"), new BigDecimal("7.99"),
+            new BigDecimal("15.00")
+    ));
+
+    private final List<BigDecimal> prices;
+
+    PriceDistribution(List<BigDecimal> prices) {
+        this.prices = prices;
+    }
+
+    public BigDecimal price(int title) {
+        return prices.get(title % prices.size());
+    }
+}
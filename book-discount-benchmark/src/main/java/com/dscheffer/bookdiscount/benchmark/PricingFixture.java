@@ -0,0 +1,92 @@
+package com.dscheffer.bookdiscount.benchmark;
+
+import com.dscheffer.bookdiscount.dto.Book;
+import com.dscheffer.bookdiscount.entity.DiscountTierEntity;
+import com.dscheffer.bookdiscount.repository.BookRepository;
+import com.dscheffer.bookdiscount.repository.DiscountTierRepository;
+import com.dscheffer.bookdiscount.service.PriceCalculatorServiceImpl;
+import com.dscheffer.bookdiscount.service.admission.PricingAdmission;
+import com.dscheffer.bookdiscount.service.admission.PricingAdmissionProperties;
+import com.dscheffer.bookdiscount.service.admission.PricingExecutor;
+import com.dscheffer.bookdiscount.service.cache.PriceCache;
+import com.dscheffer.bookdiscount.service.cache.PriceCacheProperties;
+import com.dscheffer.bookdiscount.service.catalog.BookCatalog;
+import com.dscheffer.bookdiscount.service.catalog.DiscountTierTable;
+import com.dscheffer.bookdiscount.service.engine.PriceCalculationEngine;
+import com.dscheffer.bookdiscount.service.metrics.PricingMetrics;
+import com.dscheffer.bookdiscount.service.metrics.PricingMetricsProperties;
+import com.dscheffer.bookdiscount.service.quote.PriceQuoteLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Wires a {@link PriceCalculatorServiceImpl} against stubbed repositories without a Spring context.
+ */
+final class PricingFixture {
+
+    private PricingFixture() {
+    }
+
+    /**
+     * @return a service with the price cache disabled, so every call runs the engine, for books at one unit price
+     */
+    static PriceCalculatorServiceImpl priceCalculatorService(PriceCalculationEngine engine, int numberOfBooks) {
+        return priceCalculatorService(engine, numberOfBooks, PriceDistribution.EQUAL);
+    }
+
+    /**
+     * @return a service with the price cache disabled, so every call runs the engine
+     */
+    static PriceCalculatorServiceImpl priceCalculatorService(
+            PriceCalculationEngine engine, int numberOfBooks, PriceDistribution prices
+    ) {
+        var bookRepository = mock(BookRepository.class);
+        when(bookRepository.findAllBooks()).thenReturn(LongStream.rangeClosed(1, numberOfBooks)
+                .mapToObj(id -> new Book(id, "Buch" + id, prices.price((int) id - 1), null))
+                .toList());
+        var bookCatalog = new BookCatalog(bookRepository);
+        bookCatalog.refresh();
+        var priceCache = new PriceCache(new PriceCacheProperties(0, Duration.ZERO));
+        var pricingMetrics = new PricingMetrics(
+                new SimpleMeterRegistry(), new PricingMetricsProperties(Duration.ofMillis(100), Duration.ofSeconds(10))
+        );
+        // no limits, the benchmarks measure the engines
+        var pricingAdmission = new PricingAdmission(
+                new PricingAdmissionProperties(Long.MAX_VALUE, 1, Duration.ZERO, Duration.ZERO, 0), pricingMetrics
+        );
+        return new PriceCalculatorServiceImpl(
+                bookCatalog, discountTierTable(priceCache), engine, priceCache, pricingMetrics, pricingAdmission,
+                mock(PriceQuoteLog.class), new PricingExecutor(2)
+        );
+    }
+
+    private static DiscountTierTable discountTierTable(PriceCache priceCache) {
+        var discountTierRepository = mock(DiscountTierRepository.class);
+        when(discountTierRepository.findAll()).thenReturn(List.of(
+                new DiscountTierEntity(2, new BigDecimal("0.95")),
+                new DiscountTierEntity(3, new BigDecimal("0.90")),
+                new DiscountTierEntity(4, new BigDecimal("0.80")),
+                new DiscountTierEntity(5, new BigDecimal("0.75"))
+        ));
+        var discountTierTable = new DiscountTierTable(discountTierRepository, priceCache);
+        discountTierTable.reload();
+        return discountTierTable;
+    }
+
+    static Map<Long, Integer> cart(int distinctTitles, int copiesPerTitle, QuantityDistribution distribution) {
+        var cart = new HashMap<Long, Integer>();
+        for (int title = 0; title < distinctTitles; title++) {
+            cart.put(title + 1L, distribution.quantity(copiesPerTitle, title));
+        }
+        return cart;
+    }
+}
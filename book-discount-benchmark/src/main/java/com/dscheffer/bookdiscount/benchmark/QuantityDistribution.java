@@ -0,0 +1,29 @@
+package com.dscheffer.bookdiscount.benchmark;
+
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Shapes of the benchmarked carts.
+ */
+public enum QuantityDistribution {
+
+    /**
+     * Every title has the same number of copies.
+     */
+    UNIFORM((copies, title) -> copies),
+
+    /**
+     * The number of copies halves from one title to the next, with at least one copy per title.
+     */
+    SKEWED((copies, title) -> Math.max(1, copies >> title));
+
+    private final IntBinaryOperator quantity;
+
+    QuantityDistribution(IntBinaryOperator quantity) {
+        this.quantity = quantity;
+    }
+
+    public int quantity(int copiesPerTitle, int title) {
+        return quantity.applyAsInt(copiesPerTitle, title);
+    }
+}
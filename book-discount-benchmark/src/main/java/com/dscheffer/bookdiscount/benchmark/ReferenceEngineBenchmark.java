@@ -0,0 +1,48 @@
+package com.dscheffer.bookdiscount.benchmark;
+
+import com.dscheffer.bookdiscount.service.PriceCalculatorServiceImpl;
+import com.dscheffer.bookdiscount.service.engine.ReferencePriceCalculationEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The reference engine is exponential in the number of copies, so it is only measured on small carts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReferenceEngineBenchmark {
+
+    @Param({"1", "3", "5"})
+    int distinctTitles;
+
+    @Param({"1", "2", "3"})
+    int copiesPerTitle;
+
+    @Param({"UNIFORM", "SKEWED"})
+    QuantityDistribution distribution;
+
+    @Param({"EQUAL", "MIXED"})
+    PriceDistribution prices;
+
+    PriceCalculatorServiceImpl priceCalculatorService;
+
+    Map<Long, Integer> cart;
+
+    @Setup
+    public void setup() {
+        priceCalculatorService = PricingFixture.priceCalculatorService(new ReferencePriceCalculationEngine(), distinctTitles, prices);
+        cart = PricingFixture.cart(distinctTitles, copiesPerTitle, distribution);
+    }
+
+    @Benchmark
+    public BigDecimal calculatePrice() {
+        return priceCalculatorService.calculatePrice(cart);
+    }
+}
@@ -2,5 +2,5 @@ package com.dscheffer.bookdiscount.dto;
 
 import java.math.BigDecimal;
 
-public record Book(Long id, String name, BigDecimal price) {
+public record Book(Long id, String name, BigDecimal price, String series) {
 }
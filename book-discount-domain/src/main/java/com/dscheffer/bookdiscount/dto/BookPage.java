@@ -0,0 +1,12 @@
+package com.dscheffer.bookdiscount.dto;
+
+import java.util.List;
+
+/**
+ * Books of one catalog snapshot ordered by ID.
+ *
+ * @param catalogFingerprint digest of all books of the catalog, changes whenever one of them changes and only then
+ * @param nextAfterId        the ID to continue after, {@code null} on the last page
+ */
+public record BookPage(String catalogFingerprint, List<Book> books, Long nextAfterId) {
+}
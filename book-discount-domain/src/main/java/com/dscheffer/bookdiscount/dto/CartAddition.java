@@ -0,0 +1,12 @@
+package com.dscheffer.bookdiscount.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Price of a cart after adding one more copy of a book.
+ *
+ * @param saving how much less the copy costs in the cart than on its own, zero if it does not complete a
+ *               discount set
+ */
+public record CartAddition(long bookId, BigDecimal price, BigDecimal saving) {
+}
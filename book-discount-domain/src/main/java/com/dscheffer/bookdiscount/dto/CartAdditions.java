@@ -0,0 +1,13 @@
+package com.dscheffer.bookdiscount.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Price of a cart together with the price of the carts that have one more copy of a book of a series in the cart.
+ * Books of other series cannot complete a discount set, so they are left out.
+ *
+ * @param additions at most one per book, the biggest saving first and capped to the first few
+ */
+public record CartAdditions(BigDecimal price, List<CartAddition> additions) {
+}
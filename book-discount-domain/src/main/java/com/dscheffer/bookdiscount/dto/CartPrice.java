@@ -0,0 +1,17 @@
+package com.dscheffer.bookdiscount.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Result of pricing one cart of a batch: either the price or the reason it could not be calculated.
+ */
+public record CartPrice(BigDecimal price, String error) {
+
+    public static CartPrice of(BigDecimal price) {
+        return new CartPrice(price, null);
+    }
+
+    public static CartPrice failed(String error) {
+        return new CartPrice(null, error);
+    }
+}
@@ -0,0 +1,12 @@
+package com.dscheffer.bookdiscount.dto;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Current content and price of a cart session.
+ *
+ * @param estimatedBytes rough heap size of the session including the intermediate results kept for repricing
+ */
+public record CartSessionState(String id, Map<Long, Integer> bookQuantities, BigDecimal price, long estimatedBytes) {
+}
@@ -0,0 +1,22 @@
+package com.dscheffer.bookdiscount.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a catalog import.
+ *
+ * @param rowsRead      data rows in the file, without the header
+ * @param rowsImported  valid rows upserted, including books that were already up to date
+ * @param rowsRejected  rows that failed validation and were skipped
+ * @param errors        the reasons for the first rejected rows
+ * @param rowsPerSecond rows read per second over the whole import
+ */
+public record CatalogImportResult(
+        long rowsRead,
+        long rowsImported,
+        long rowsRejected,
+        List<String> errors,
+        long durationMillis,
+        long rowsPerSecond
+) {
+}
@@ -0,0 +1,123 @@
+package com.dscheffer.bookdiscount.dto;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Quantities per book in two parallel primitive arrays sorted by book ID, each book ID occurring once.
+ */
+public final class ShoppingCart {
+
+    private final long[] bookIds;
+    private final int[] quantities;
+    private final int size;
+
+    private ShoppingCart(long[] bookIds, int[] quantities, int size) {
+        this.bookIds = bookIds;
+        this.quantities = quantities;
+        this.size = size;
+    }
+
+    public static ShoppingCart of(Map<Long, Integer> bookQuantities) {
+        var builder = new Builder(bookQuantities.size());
+        bookQuantities.forEach(builder::add);
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long bookId(int index) {
+        return bookIds[index];
+    }
+
+    public int quantity(int index) {
+        return quantities[index];
+    }
+
+    public Map<Long, Integer> toBookQuantities() {
+        var bookQuantities = new LinkedHashMap<Long, Integer>();
+        for (int i = 0; i < size; i++) {
+            bookQuantities.put(bookIds[i], quantities[i]);
+        }
+        return bookQuantities;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ShoppingCart other
+                && Arrays.equals(bookIds, 0, size, other.bookIds, 0, other.size)
+                && Arrays.equals(quantities, 0, size, other.quantities, 0, other.size);
+    }
+
+    @Override
+    public int hashCode() {
+        var hash = 1;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * (31 * hash + Long.hashCode(bookIds[i])) + quantities[i];
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return toBookQuantities().toString();
+    }
+
+    /**
+     * Collects quantities, adding up those of the same book.
+     */
+    public static final class Builder {
+
+        private long[] bookIds;
+        private int[] quantities;
+        private int size;
+
+        public Builder() {
+            this(8);
+        }
+
+        public Builder(int expectedBooks) {
+            this.bookIds = new long[Math.max(expectedBooks, 1)];
+            this.quantities = new int[bookIds.length];
+        }
+
+        public Builder add(long bookId, int quantity) {
+            if (bookIds == null) {
+                throw new IllegalStateException("Cart was already built");
+            }
+            var index = Arrays.binarySearch(bookIds, 0, size, bookId);
+            if (index >= 0) {
+                quantities[index] = Math.addExact(quantities[index], quantity);
+                return this;
+            }
+
+            var insertAt = -index - 1;
+            if (size == bookIds.length) {
+                bookIds = Arrays.copyOf(bookIds, 2 * size);
+                quantities = Arrays.copyOf(quantities, 2 * size);
+            }
+            System.arraycopy(bookIds, insertAt, bookIds, insertAt + 1, size - insertAt);
+            System.arraycopy(quantities, insertAt, quantities, insertAt + 1, size - insertAt);
+            bookIds[insertAt] = bookId;
+            quantities[insertAt] = quantity;
+            size++;
+            return this;
+        }
+
+        /**
+         * Hands the collected arrays over to the cart without copying them, so the builder cannot be used afterwards.
+         */
+        public ShoppingCart build() {
+            if (bookIds == null) {
+                throw new IllegalStateException("Cart was already built");
+            }
+            var cart = new ShoppingCart(bookIds, quantities, size);
+            bookIds = null;
+            quantities = null;
+            return cart;
+        }
+    }
+}
@@ -1,9 +1,23 @@
 package com.dscheffer.bookdiscount.service;
 
-import com.dscheffer.bookdiscount.dto.Book;
+import com.dscheffer.bookdiscount.dto.BookPage;
+import com.dscheffer.bookdiscount.dto.CatalogImportResult;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.Reader;
 
 public interface BookService {
-    List<Book> getAllBooks();
+    BookPage getAllBooks();
+
+    /**
+     * Keyset pagination: the books with an ID greater than {@code afterId} ordered by ID, at most {@code limit}.
+     */
+    BookPage getBooks(long afterId, int limit);
+
+    /**
+     * Adds or updates the books in a CSV file with the columns {@code name,price[,series]}, identified by name.
+     *
+     * @throws CatalogImportRunningException if another import has not finished yet
+     */
+    CatalogImportResult importBooks(Reader csv) throws IOException;
 }
@@ -0,0 +1,27 @@
+package com.dscheffer.bookdiscount.service;
+
+import com.dscheffer.bookdiscount.dto.CartSessionState;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Carts kept on the server between requests, so that changing a few quantities does not reprice from scratch.
+ * Sessions expire when they have not been changed for a while; an empty result means the session is unknown or
+ * expired.
+ */
+public interface CartSessionService {
+
+    CartSessionState create(Map<Long, Integer> bookQuantities);
+
+    Optional<CartSessionState> get(String id);
+
+    /**
+     * Adds {@code quantity} copies of a book, a negative quantity removes copies. Quantities never drop below zero.
+     *
+     * @throws IllegalArgumentException if the book is unknown or the new quantity does not fit into an {@code int}
+     */
+    Optional<CartSessionState> changeQuantity(String id, long bookId, int quantity);
+
+    boolean delete(String id);
+}
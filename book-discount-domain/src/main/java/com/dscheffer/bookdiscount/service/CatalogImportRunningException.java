@@ -0,0 +1,11 @@
+package com.dscheffer.bookdiscount.service;
+
+/**
+ * Thrown when a catalog import is started while another one is still running.
+ */
+public class CatalogImportRunningException extends RuntimeException {
+
+    public CatalogImportRunningException(String message) {
+        super(message);
+    }
+}
@@ -1,8 +1,60 @@
 package com.dscheffer.bookdiscount.service;
 
+import com.dscheffer.bookdiscount.dto.CartAdditions;
+import com.dscheffer.bookdiscount.dto.CartPrice;
+import com.dscheffer.bookdiscount.dto.ShoppingCart;
+
 import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public interface PriceCalculatorService {
+
+    /**
+     * @throws PricingRejectedException       if the cart is expensive to price and too many such carts are in progress
+     * @throws PricingBudgetExceededException if the cart could not be priced within the time budget
+     */
     BigDecimal calculatePrice(Map<Long, Integer> booksWithQuantities);
+
+    /**
+     * Same as {@link #calculatePrice(Map)} without boxing the cart.
+     */
+    BigDecimal calculatePrice(ShoppingCart cart);
+
+    /**
+     * Prices {@code cart} and every cart with one more copy of a book of a series in the cart, e.g. to suggest the
+     * book that saves the most. The variants share the search state of the cart, so this costs about as much as a
+     * few single calculations rather than one per book.
+     *
+     * @throws PricingRejectedException       if one of the carts is expensive to price and too many such carts are
+     *                                        in progress
+     * @throws PricingBudgetExceededException if one of the carts could not be priced within the time budget
+     */
+    CartAdditions calculateAdditions(ShoppingCart cart);
+
+    /**
+     * Prices many carts against the same catalog state. Results are in the order of {@code carts}; a cart that
+     * cannot be priced yields a {@link CartPrice} with an error instead of failing the whole batch.
+     */
+    List<CartPrice> calculatePrices(List<Map<Long, Integer>> carts);
+
+    /**
+     * Same as {@link #calculatePrices(List)} without boxing the carts.
+     */
+    List<CartPrice> calculateCartPrices(List<ShoppingCart> carts);
+
+    /**
+     * Prices a stream of carts of any length against the same catalog state with a bounded number of carts in
+     * flight. Results are handed to {@code results} in the order of {@code carts} as soon as they are known. A cart
+     * that cannot be read, i.e. {@code carts.next()} throws, or cannot be priced yields a {@link CartPrice} with an
+     * error.
+     */
+    void calculatePrices(Iterator<Map<Long, Integer>> carts, Consumer<CartPrice> results);
+
+    /**
+     * Same as {@link #calculatePrices(Iterator, Consumer)} without boxing the carts.
+     */
+    void calculateCartPrices(Iterator<ShoppingCart> carts, Consumer<CartPrice> results);
 }
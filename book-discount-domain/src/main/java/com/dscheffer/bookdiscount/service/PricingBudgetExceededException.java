@@ -0,0 +1,12 @@
+package com.dscheffer.bookdiscount.service;
+
+/**
+ * Thrown when the search for the cheapest grouping of a cart is given up because it exceeded its time budget.
+ * Retrying the same cart will fail again.
+ */
+public class PricingBudgetExceededException extends RuntimeException {
+
+    public PricingBudgetExceededException(String message) {
+        super(message);
+    }
+}
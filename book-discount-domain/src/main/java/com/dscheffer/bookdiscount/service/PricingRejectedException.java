@@ -0,0 +1,12 @@
+package com.dscheffer.bookdiscount.service;
+
+/**
+ * Thrown when an expensive cart is not priced because too many other expensive carts are being priced. Retrying
+ * later may succeed.
+ */
+public class PricingRejectedException extends RuntimeException {
+
+    public PricingRejectedException(String message) {
+        super(message);
+    }
+}
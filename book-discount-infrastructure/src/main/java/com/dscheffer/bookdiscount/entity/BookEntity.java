@@ -9,6 +9,7 @@ import java.math.BigDecimal;
 
 @Entity
 @Table(name = "book")
+@EntityListeners(BookEntityListener.class)
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -24,4 +25,14 @@ public class BookEntity {
     @Column(name = "price")
     private BigDecimal price;
 
+    /**
+     * Discounts only apply between books of the same series, {@code null} for the series of books without one.
+     */
+    @Column(name = "series")
+    private String series;
+
+    public BookEntity(Long id, String name, BigDecimal price) {
+        this(id, name, price, null);
+    }
+
 }
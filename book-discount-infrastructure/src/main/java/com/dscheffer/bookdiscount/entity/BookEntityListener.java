@@ -0,0 +1,25 @@
+package com.dscheffer.bookdiscount.entity;
+
+import com.dscheffer.bookdiscount.service.cache.PriceCache;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops cached prices whenever a book is written through JPA.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookEntityListener {
+
+    private final PriceCache priceCache;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void bookChanged(BookEntity book) {
+        priceCache.clear();
+    }
+}
@@ -0,0 +1,24 @@
+package com.dscheffer.bookdiscount.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Entity
+@Table(name = "discount_tier")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DiscountTierEntity {
+
+    @Id
+    @Column(name = "set_size")
+    private Integer setSize;
+
+    @Column(name = "factor")
+    private BigDecimal factor;
+
+}
@@ -1,7 +1,17 @@
 package com.dscheffer.bookdiscount.repository;
 
+import com.dscheffer.bookdiscount.dto.Book;
 import com.dscheffer.bookdiscount.entity.BookEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface BookRepository extends JpaRepository<BookEntity, Long> {
+
+    /**
+     * Reads the books straight into DTOs ordered by ID, without managed entities and their dirty checking snapshots.
+     */
+    @Query("select new com.dscheffer.bookdiscount.dto.Book(b.id, b.name, b.price, b.series) from BookEntity b order by b.id")
+    List<Book> findAllBooks();
 }
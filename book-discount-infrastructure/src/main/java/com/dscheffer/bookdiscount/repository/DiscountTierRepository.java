@@ -0,0 +1,7 @@
+package com.dscheffer.bookdiscount.repository;
+
+import com.dscheffer.bookdiscount.entity.DiscountTierEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface DiscountTierRepository extends JpaRepository<DiscountTierEntity, Integer> {
+}
@@ -1,22 +1,38 @@
 package com.dscheffer.bookdiscount.service;
 
-import com.dscheffer.bookdiscount.dto.Book;
-import com.dscheffer.bookdiscount.repository.BookRepository;
+import com.dscheffer.bookdiscount.dto.BookPage;
+import com.dscheffer.bookdiscount.dto.CatalogImportResult;
+import com.dscheffer.bookdiscount.service.catalog.BookCatalog;
+import com.dscheffer.bookdiscount.service.catalog.CatalogImport;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.Reader;
 
 @Service
 @RequiredArgsConstructor
 public class BookServiceImpl implements BookService {
 
-    private final BookRepository bookRepository;
+    private final BookCatalog bookCatalog;
+    private final CatalogImport catalogImport;
 
     @Override
-    public List<Book> getAllBooks() {
-        return bookRepository.findAll().stream()
-                .map(b -> new Book(b.getId(), b.getName(), b.getPrice()))
-                .toList();
+    public BookPage getAllBooks() {
+        var snapshot = bookCatalog.snapshot();
+        return new BookPage(snapshot.fingerprint(), snapshot.books(), null);
+    }
+
+    @Override
+    public BookPage getBooks(long afterId, int limit) {
+        var snapshot = bookCatalog.snapshot();
+        var books = snapshot.booksAfter(afterId, limit);
+        var hasMore = !books.isEmpty() && books.getLast().id() < snapshot.bookId(snapshot.size() - 1);
+        return new BookPage(snapshot.fingerprint(), books, hasMore ? books.getLast().id() : null);
+    }
+
+    @Override
+    public CatalogImportResult importBooks(Reader csv) throws IOException {
+        return catalogImport.importCsv(csv);
     }
 }
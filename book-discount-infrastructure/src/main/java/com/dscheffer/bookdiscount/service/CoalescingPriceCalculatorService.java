@@ -0,0 +1,112 @@
+package com.dscheffer.bookdiscount.service;
+
+import com.dscheffer.bookdiscount.dto.CartAdditions;
+import com.dscheffer.bookdiscount.dto.CartPrice;
+import com.dscheffer.bookdiscount.dto.ShoppingCart;
+import com.dscheffer.bookdiscount.service.metrics.PricingMetrics;
+import com.dscheffer.bookdiscount.service.quote.PriceQuoteLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Lets concurrent requests for the same cart share one calculation: the first one computes the price, the ones
+ * arriving while it is in flight wait for its result or failure. Carts are compared as {@link ShoppingCart}s, so
+ * the order of the books and repeated books do not matter.
+ * <p>
+ * Batches, streams and additions are passed through, they share work between equal carts themselves.
+ * <p>
+ * The calculation logs its own quote, every request that shared it logs another one with the time it waited.
+ */
+@Primary
+@Service
+@RequiredArgsConstructor
+public class CoalescingPriceCalculatorService implements PriceCalculatorService {
+
+    private final PriceCalculatorServiceImpl priceCalculatorService;
+    private final PricingMetrics pricingMetrics;
+    private final PriceQuoteLog priceQuoteLog;
+    private final Map<ShoppingCart, CompletableFuture<BigDecimal>> inFlight = new ConcurrentHashMap<>();
+
+    @Override
+    public BigDecimal calculatePrice(Map<Long, Integer> booksWithQuantities) {
+        return calculatePrice(ShoppingCart.of(booksWithQuantities));
+    }
+
+    @Override
+    public BigDecimal calculatePrice(ShoppingCart cart) {
+        var calculation = new CompletableFuture<BigDecimal>();
+        var running = inFlight.putIfAbsent(cart, calculation);
+        pricingMetrics.recordCoalescing(running != null);
+        if (running != null) {
+            return await(cart, running);
+        }
+
+        try {
+            var price = priceCalculatorService.calculatePrice(cart);
+            calculation.complete(price);
+            return price;
+        } catch (RuntimeException | Error e) {
+            calculation.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cart, calculation);
+        }
+    }
+
+    @Override
+    public CartAdditions calculateAdditions(ShoppingCart cart) {
+        return priceCalculatorService.calculateAdditions(cart);
+    }
+
+    @Override
+    public List<CartPrice> calculatePrices(List<Map<Long, Integer>> carts) {
+        return priceCalculatorService.calculatePrices(carts);
+    }
+
+    @Override
+    public List<CartPrice> calculateCartPrices(List<ShoppingCart> carts) {
+        return priceCalculatorService.calculateCartPrices(carts);
+    }
+
+    @Override
+    public void calculatePrices(Iterator<Map<Long, Integer>> carts, Consumer<CartPrice> results) {
+        priceCalculatorService.calculatePrices(carts, results);
+    }
+
+    @Override
+    public void calculateCartPrices(Iterator<ShoppingCart> carts, Consumer<CartPrice> results) {
+        priceCalculatorService.calculateCartPrices(carts, results);
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    private BigDecimal await(ShoppingCart cart, CompletableFuture<BigDecimal> calculation) {
+        var start = System.nanoTime();
+        try {
+            var price = calculation.join();
+            priceQuoteLog.record(cart, price, null, System.nanoTime() - start);
+            return price;
+        } catch (CompletionException e) {
+            priceQuoteLog.record(cart, null, e.getCause().getMessage(), System.nanoTime() - start);
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
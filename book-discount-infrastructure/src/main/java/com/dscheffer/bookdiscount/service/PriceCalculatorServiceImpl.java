@@ -1,136 +1,393 @@
 package com.dscheffer.bookdiscount.service;
 
-import com.dscheffer.bookdiscount.entity.BookEntity;
-import com.dscheffer.bookdiscount.repository.BookRepository;
+import com.dscheffer.bookdiscount.dto.CartAddition;
+import com.dscheffer.bookdiscount.dto.CartAdditions;
+import com.dscheffer.bookdiscount.dto.CartPrice;
+import com.dscheffer.bookdiscount.dto.ShoppingCart;
+import com.dscheffer.bookdiscount.service.admission.PricingAdmission;
+import com.dscheffer.bookdiscount.service.admission.PricingExecutor;
+import com.dscheffer.bookdiscount.service.cache.CartSignature;
+import com.dscheffer.bookdiscount.service.cache.PriceCache;
+import com.dscheffer.bookdiscount.service.catalog.BookCatalog;
+import com.dscheffer.bookdiscount.service.catalog.CatalogSnapshot;
+import com.dscheffer.bookdiscount.service.catalog.DiscountTierTable;
+import com.dscheffer.bookdiscount.service.engine.CartLine;
+import com.dscheffer.bookdiscount.service.engine.PriceCalculationEngine;
+import com.dscheffer.bookdiscount.service.engine.SearchBudget;
+import com.dscheffer.bookdiscount.service.engine.SearchListener;
+import com.dscheffer.bookdiscount.service.engine.SolverMemo;
+import com.dscheffer.bookdiscount.service.metrics.PricingMetrics;
+import com.dscheffer.bookdiscount.service.quote.PriceQuoteLog;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.*;
-import java.util.stream.IntStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class PriceCalculatorServiceImpl implements PriceCalculatorService {
 
-    private final BookRepository bookRepository;
+    // enough queued work to keep every core busy while the head of the stream is still being priced
+    private static final int MAX_CARTS_IN_FLIGHT = 4 * Runtime.getRuntime().availableProcessors();
+    private static final int MAX_ADDITIONS = 20;
+    // about 30 MB, the variants mostly need the partial carts close to the cart itself
+    private static final int MAX_ADDITIONS_MEMO_ENTRIES = 1 << 18;
+
+    private final BookCatalog bookCatalog;
+    private final DiscountTierTable discountTierTable;
+    private final PriceCalculationEngine priceCalculationEngine;
+    private final PriceCache priceCache;
+    private final PricingMetrics pricingMetrics;
+    private final PricingAdmission pricingAdmission;
+    private final PriceQuoteLog priceQuoteLog;
+    private final PricingExecutor pricingExecutor;
 
     @Override
     public BigDecimal calculatePrice(Map<Long, Integer> bookQuantities) {
-        var bookEntities = bookRepository.findAllById(bookQuantities.keySet());
-        if (bookEntities.size() != bookQuantities.keySet().size()) {
-            throw new IllegalArgumentException("Unknown ID used!");
-        }
+        return calculatePrice(bookCatalog.snapshot(), bookQuantities);
+    }
+
+    @Override
+    public BigDecimal calculatePrice(ShoppingCart cart) {
+        return calculatePrice(bookCatalog.snapshot(), cart);
+    }
 
-        var totalNumberOfBooks = bookQuantities.values().stream().reduce(0, Integer::sum);
-        var possibleCompositions = combinationSum(IntStream.range(1, bookEntities.size() + 1).boxed().toList(), totalNumberOfBooks);
+    @Override
+    public List<CartPrice> calculatePrices(List<Map<Long, Integer>> carts) {
+        return calculateCartPrices(carts.stream().map(ShoppingCart::of).toList());
+    }
 
-        var finalPrice = BigDecimal.ZERO;
-        List<BookEntity> booksSortedByQuantityDesc = bookEntities.stream()
-                .sorted((b1, b2) -> bookQuantities.get(b2.getId()).compareTo(bookQuantities.get(b1.getId())))
+    @Override
+    public List<CartPrice> calculateCartPrices(List<ShoppingCart> carts) {
+        var catalog = bookCatalog.snapshot();
+        var distinctCarts = new LinkedHashMap<ShoppingCart, Integer>();
+        carts.forEach(cart -> distinctCarts.putIfAbsent(cart, distinctCarts.size()));
+
+        var distinctPrices = distinctCarts.keySet().stream()
+                .map(cart -> CompletableFuture.supplyAsync(() -> calculateCartPrice(catalog, cart), pricingExecutor))
+                .toList();
+
+        return carts.stream()
+                .map(cart -> distinctPrices.get(distinctCarts.get(cart)).join())
                 .toList();
-        for (List<Integer> composition : possibleCompositions) {
-            var discountSets = createDiscountSets(bookQuantities, booksSortedByQuantityDesc, composition);
-            if (discountSets.isEmpty()) {
-                continue;
+    }
+
+    @Override
+    public void calculatePrices(Iterator<Map<Long, Integer>> carts, Consumer<CartPrice> results) {
+        calculateCartPrices(new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return carts.hasNext();
             }
-            var price = calculateDiscountSetsPrice(discountSets);
-            if (priceIsSmallerOrFinalPriceIsNotInitialized(finalPrice, price)) {
-                finalPrice = price;
+
+            @Override
+            public ShoppingCart next() {
+                return ShoppingCart.of(carts.next());
+            }
+        }, results);
+    }
+
+    @Override
+    public void calculateCartPrices(Iterator<ShoppingCart> carts, Consumer<CartPrice> results) {
+        var catalog = bookCatalog.snapshot();
+        var inFlight = new ArrayDeque<CompletableFuture<CartPrice>>(MAX_CARTS_IN_FLIGHT);
+        while (carts.hasNext()) {
+            CompletableFuture<CartPrice> result;
+            try {
+                var cart = carts.next();
+                result = CompletableFuture.supplyAsync(() -> calculateCartPrice(catalog, cart), pricingExecutor);
+            } catch (RuntimeException e) {
+                result = CompletableFuture.completedFuture(CartPrice.failed(e.getMessage()));
+            }
+            if (inFlight.size() == MAX_CARTS_IN_FLIGHT) {
+                results.accept(inFlight.remove().join());
             }
+            inFlight.add(result);
         }
+        while (!inFlight.isEmpty()) {
+            results.accept(inFlight.remove().join());
+        }
+    }
+
+    private CartPrice calculateCartPrice(CatalogSnapshot catalog, ShoppingCart cart) {
+        try {
+            return CartPrice.of(calculatePrice(catalog, cart));
+        } catch (RuntimeException e) {
+            return CartPrice.failed(e.getMessage());
+        }
+    }
+
+    @Override
+    public CartAdditions calculateAdditions(ShoppingCart cart) {
+        var catalog = bookCatalog.snapshot();
+        var start = System.nanoTime();
+        try {
+            var additions = priceAdditions(catalog, cart);
+            priceQuoteLog.record(cart, additions.price(), null, System.nanoTime() - start);
+            return additions;
+        } catch (RuntimeException e) {
+            priceQuoteLog.record(cart, null, e.getMessage(), System.nanoTime() - start);
+            throw e;
+        }
+    }
 
-        return finalPrice.setScale(2, RoundingMode.HALF_UP);
+    /**
+     * @return a service pricing like this one with the same catalog, discount tiers, engine and admission permits
+     * that leaves no trace: it bypasses the price cache, logs no quotes and reports to meters of its own. For synthetic
+     * carts warming up the hot path.
+     */
+    public PriceCalculatorServiceImpl unrecorded() {
+        var unregisteredMetrics = PricingMetrics.unregistered();
+        return new PriceCalculatorServiceImpl(
+                bookCatalog, discountTierTable, priceCalculationEngine.withSearchListener(SearchListener.NONE),
+                PriceCache.bypassed(), unregisteredMetrics, pricingAdmission.reportingTo(unregisteredMetrics),
+                PriceQuoteLog.disabled(priceCalculationEngine), pricingExecutor
+        );
     }
 
-    private static boolean priceIsSmallerOrFinalPriceIsNotInitialized(
-            BigDecimal finalPrice, BigDecimal price
-    ) {
-        return finalPrice.compareTo(BigDecimal.ZERO) == 0 || price.compareTo(finalPrice) < 0;
+    /**
+     * Prices a cart like {@link #calculatePrice(Map)}, reusing and extending the intermediate results of earlier
+     * calls in {@code memo}.
+     */
+    public BigDecimal calculatePrice(Map<Long, Integer> bookQuantities, SolverMemo memo) {
+        return price(seriesCartLines(bookCatalog.snapshot(), ShoppingCart.of(bookQuantities)), memo)
+                .setScale(2, RoundingMode.HALF_UP);
     }
 
-    private List<List<Integer>> combinationSum(List<Integer> candidates, Integer target) {
-        var result = new ArrayList<List<Integer>>();
-        combinationSumHelper(candidates, 0, new ArrayList<>(), target, result);
-        return result;
+    private BigDecimal calculatePrice(CatalogSnapshot catalog, Map<Long, Integer> bookQuantities) {
+        return calculatePrice(catalog, ShoppingCart.of(bookQuantities));
     }
 
-    private void combinationSumHelper(
-            List<Integer> candidates,
-            Integer currentSum,
-            List<Integer> currentCombination,
-            Integer target,
-            List<List<Integer>> result
-    ) {
-        if (currentSum.equals(target)) {
-            result.add(currentCombination);
-            return;
+    private BigDecimal calculatePrice(CatalogSnapshot catalog, ShoppingCart cart) {
+        var start = System.nanoTime();
+        try {
+            var price = priceSeries(catalog, cart);
+            priceQuoteLog.record(cart, price, null, System.nanoTime() - start);
+            return price;
+        } catch (RuntimeException e) {
+            priceQuoteLog.record(cart, null, e.getMessage(), System.nanoTime() - start);
+            throw e;
         }
+    }
+
+    private BigDecimal priceSeries(CatalogSnapshot catalog, ShoppingCart cart) {
+        return price(seriesCartLines(catalog, cart), null).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Discounts only apply within a series, so every series is an independent problem. The cart is admitted once for
+     * the series the cache does not know, whose searches then share one budget. The series' prices are added up
+     * before rounding. The cart's calculation is timed once if any of its series had to be searched.
+     *
+     * @param memo intermediate results shared with other calls, {@code null} if there are none; it is not thread
+     *             safe, so the series are only priced in parallel without one
+     * @return the unrounded price of the cart
+     */
+    private BigDecimal price(List<List<CartLine>> series, SolverMemo memo) {
+        var start = System.nanoTime();
+        var searched = new AtomicBoolean();
+        var cartPrice = pricingAdmission.admit(estimatedCost(series), budget -> {
+            if (memo != null || series.size() == 1) {
+                var price = BigDecimal.ZERO;
+                for (var cartLines : series) {
+                    price = price.add(price(cartLines, memo, budget, searched));
+                }
+                return price;
+            }
+            return series.parallelStream()
+                    .map(cartLines -> price(cartLines, null, budget, searched))
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        });
+        recordCalculation(series, searched, start);
+        return cartPrice;
+    }
 
-        if (currentSum > target) {
-            return;
+    /**
+     * Records the calculation of the whole cart, unless all of its series came from the cache.
+     *
+     * @param series lines of each series in the cart
+     */
+    private void recordCalculation(List<List<CartLine>> series, AtomicBoolean searched, long start) {
+        if (searched.get()) {
+            var cartLines = series.stream()
+                    .flatMap(List::stream)
+                    .sorted(CartLine.BY_QUANTITY_DESC)
+                    .toList();
+            pricingMetrics.recordCalculation(CartSignature.of(cartLines), System.nanoTime() - start);
         }
+    }
 
-        for (int i = 0; i < candidates.size(); i++) {
-            var currentCombinationCopy = new ArrayList<>(currentCombination);
-            currentCombinationCopy.add(candidates.get(i));
-            combinationSumHelper(candidates, currentSum + candidates.get(i), currentCombinationCopy, target, result);
+    /**
+     * @return the estimated cost of the carts the cache does not know, cached ones need not be searched
+     */
+    private long estimatedCost(List<List<CartLine>> carts) {
+        var estimatedCost = 0L;
+        for (var cartLines : carts) {
+            if (!priceCache.contains(CartSignature.of(cartLines))) {
+                var sum = estimatedCost + priceCalculationEngine.estimatedCost(cartLines);
+                estimatedCost = sum < 0 ? Long.MAX_VALUE : sum;
+            }
         }
+        return estimatedCost;
     }
 
-    private List<Set<BookEntity>> createDiscountSets(
-            Map<Long, Integer> bookQuantities,
-            List<BookEntity> bookEntities,
-            List<Integer> maximumDiscountSetSizes
-    ) {
-        var bookQuantitiesCopy = new HashMap<>(bookQuantities);
-        var discountSets = new ArrayList<Set<BookEntity>>();
-        for(Integer maxDiscountSetSize : maximumDiscountSetSizes) {
-            var discountSet = new HashSet<BookEntity>();
-            for (BookEntity book : bookEntities) {
-                var quantity = bookQuantitiesCopy.get(book.getId());
-                if (quantity > 0) {
-                    discountSet.add(book);
-                    bookQuantitiesCopy.put(book.getId(), quantity - 1);
-                }
-                if (discountSet.size() == maxDiscountSetSize) {
-                    break;
-                }
+    /**
+     * @return the lines of each series in the cart sorted by {@link CartLine#BY_QUANTITY_DESC}, a single empty list
+     * for an empty cart
+     */
+    private List<List<CartLine>> seriesCartLines(CatalogSnapshot catalog, ShoppingCart cart) {
+        var cartLinesBySeries = cartLinesBySeries(catalog, cart);
+        return cartLinesBySeries.isEmpty() ? List.of(List.of()) : List.copyOf(cartLinesBySeries.values());
+    }
+
+    /**
+     * @return the lines of each series in the cart sorted by {@link CartLine#BY_QUANTITY_DESC} by series number
+     */
+    private Map<Integer, List<CartLine>> cartLinesBySeries(CatalogSnapshot catalog, ShoppingCart cart) {
+        var start = System.nanoTime();
+        var cartLinesBySeries = new HashMap<Integer, List<CartLine>>();
+        for (int i = 0; i < cart.size(); i++) {
+            var index = catalog.indexOf(cart.bookId(i));
+            if (index < 0) {
+                throw new IllegalArgumentException("Unknown ID used!");
+            }
+            if (cart.quantity(i) > 0) {
+                cartLinesBySeries.computeIfAbsent(catalog.series(index), s -> new ArrayList<>())
+                        .add(new CartLine(cart.bookId(i), catalog.priceCents(index), cart.quantity(i)));
             }
-            discountSets.add(discountSet);
         }
+        cartLinesBySeries.values().forEach(cartLines -> cartLines.sort(CartLine.BY_QUANTITY_DESC));
+        pricingMetrics.recordCatalogLookup(System.nanoTime() - start);
+        return cartLinesBySeries;
+    }
 
-        // current discount set combination is not possible with provided quantities
-        if (hasQuantitiesLeft(bookQuantitiesCopy)) {
-            return List.of();
+    /**
+     * Adding a copy only changes the price of the book's own series, so only books of series already in the cart can
+     * save anything and only those are priced. Each series is priced as it is in the cart and with one more copy of
+     * each of its books, all with one memo, so the variants mostly look up the partial carts searched for the cart
+     * itself. Books with the same price and quantity give the same variant, which is priced only once. Series are
+     * independent and priced in parallel, admitted once for the whole cart with one budget.
+     */
+    private CartAdditions priceAdditions(CatalogSnapshot catalog, ShoppingCart cart) {
+        var start = System.nanoTime();
+        var searched = new AtomicBoolean();
+        var seriesVariants = cartLinesBySeries(catalog, cart).entrySet().stream()
+                .map(series -> SeriesVariants.of(catalog, series.getValue(), catalog.seriesBooks(series.getKey())))
+                .toList();
+        var carts = seriesVariants.stream()
+                .flatMap(series -> Stream.concat(Stream.of(series.cartLines()), series.variants().stream()))
+                .toList();
+        var seriesAdditions = pricingAdmission.admit(estimatedCost(carts), budget -> seriesVariants.parallelStream()
+                .map(series -> priceSeriesAdditions(series, budget, searched))
+                .toList());
+        recordCalculation(seriesVariants.stream().map(SeriesVariants::cartLines).toList(), searched, start);
+
+        var unroundedPrice = seriesAdditions.stream()
+                .map(SeriesAdditions::price)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        var price = unroundedPrice.setScale(2, RoundingMode.HALF_UP);
+        var additions = new ArrayList<CartAddition>();
+        for (var series : seriesAdditions) {
+            var otherSeriesPrice = unroundedPrice.subtract(series.price());
+            for (int i = 0; i < series.books().size(); i++) {
+                var index = series.books().get(i);
+                var additionPrice = otherSeriesPrice.add(series.additionPrices().get(i)).setScale(2, RoundingMode.HALF_UP);
+                var saving = price.add(BigDecimal.valueOf(catalog.priceCents(index), 2)).subtract(additionPrice);
+                additions.add(new CartAddition(catalog.bookId(index), additionPrice, saving.max(BigDecimal.ZERO.setScale(2))));
+            }
+        }
+        return new CartAdditions(price, additions.stream()
+                .sorted(Comparator.comparing(CartAddition::saving).reversed().thenComparingLong(CartAddition::bookId))
+                .limit(MAX_ADDITIONS)
+                .toList());
+    }
+
+    private SeriesAdditions priceSeriesAdditions(SeriesVariants series, SearchBudget budget, AtomicBoolean searched) {
+        var memo = new SolverMemo(MAX_ADDITIONS_MEMO_ENTRIES);
+        var price = price(series.cartLines(), memo, budget, searched);
+        var variantPrices = new ArrayList<BigDecimal>(series.variants().size());
+        for (var variant : series.variants()) {
+            variantPrices.add(price(variant, memo, budget, searched));
         }
+        var additionPrices = Arrays.stream(series.variantOfBook()).mapToObj(variantPrices::get).toList();
+        return new SeriesAdditions(price, series.books(), additionPrices);
+    }
 
-        return discountSets;
+    private static List<CartLine> withOneMoreCopy(List<CartLine> cartLines, long bookId, long priceCents) {
+        var variant = new ArrayList<CartLine>(cartLines.size() + 1);
+        var added = false;
+        for (var cartLine : cartLines) {
+            if (cartLine.bookId() == bookId) {
+                variant.add(new CartLine(bookId, priceCents, Math.addExact(cartLine.quantity(), 1)));
+                added = true;
+            } else {
+                variant.add(cartLine);
+            }
+        }
+        if (!added) {
+            variant.add(new CartLine(bookId, priceCents, 1));
+        }
+        variant.sort(CartLine.BY_QUANTITY_DESC);
+        return variant;
     }
 
-    private static boolean hasQuantitiesLeft(HashMap<Long, Integer> bookQuantitiesCopy) {
-        return bookQuantitiesCopy.entrySet().stream()
-                .anyMatch(e -> e.getValue() > 0);
+    /**
+     * @param cartLines     the series' lines in the cart
+     * @param books         catalog indexes of the series' books
+     * @param variants      distinct carts of the series with one more copy of one of {@code books}
+     * @param variantOfBook index into {@code variants} for each of {@code books}
+     */
+    private record SeriesVariants(List<CartLine> cartLines, List<Integer> books, List<List<CartLine>> variants, int[] variantOfBook) {
+
+        static SeriesVariants of(CatalogSnapshot catalog, List<CartLine> cartLines, List<Integer> books) {
+            var variantIndexes = new HashMap<CartSignature, Integer>();
+            var variants = new ArrayList<List<CartLine>>();
+            var variantOfBook = new int[books.size()];
+            for (int i = 0; i < books.size(); i++) {
+                var index = books.get(i);
+                var variant = withOneMoreCopy(cartLines, catalog.bookId(index), catalog.priceCents(index));
+                variantOfBook[i] = variantIndexes.computeIfAbsent(CartSignature.of(variant), signature -> {
+                    variants.add(variant);
+                    return variants.size() - 1;
+                });
+            }
+            return new SeriesVariants(cartLines, books, variants, variantOfBook);
+        }
     }
 
-    private BigDecimal discountFactor(Set<BookEntity> discountSet) {
-        return switch(discountSet.size()) {
-            case 2 -> new BigDecimal("0.95");
-            case 3 -> new BigDecimal("0.90");
-            case 4 -> new BigDecimal("0.80");
-            case 5 -> new BigDecimal("0.75");
-            default -> BigDecimal.ONE;
-        };
+    /**
+     * @param price          unrounded price of the series' lines in the cart
+     * @param books          catalog indexes of the series' books
+     * @param additionPrices unrounded price of the series with one more copy of each of {@code books}
+     */
+    private record SeriesAdditions(BigDecimal price, List<Integer> books, List<BigDecimal> additionPrices) {
     }
 
-    private BigDecimal calculateDiscountSetsPrice(List<Set<BookEntity>> discountSets) {
-        return discountSets.stream()
-                .map(s -> s.stream()
-                    .map(BookEntity::getPrice)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add)
-                    .multiply(discountFactor(s))
-                ).reduce(BigDecimal.ZERO, BigDecimal::add);
+    /**
+     * @param memo     intermediate results shared with other calls, {@code null} if there are none
+     * @param budget   budget of the whole cart the series belongs to
+     * @param searched set if the series missed the cache and was searched
+     * @return the unrounded price of one series
+     */
+    private BigDecimal price(List<CartLine> cartLines, SolverMemo memo, SearchBudget budget, AtomicBoolean searched) {
+        return priceCache.get(CartSignature.of(cartLines), () -> {
+            searched.set(true);
+            return priceCalculationEngine.calculatePrice(cartLines, discountTierTable.discountTiers(), memo, budget);
+        });
     }
 
 }
@@ -0,0 +1,102 @@
+package com.dscheffer.bookdiscount.service.admission;
+
+import com.dscheffer.bookdiscount.service.PricingBudgetExceededException;
+import com.dscheffer.bookdiscount.service.PricingRejectedException;
+import com.dscheffer.bookdiscount.service.engine.SearchBudget;
+import com.dscheffer.bookdiscount.service.metrics.PricingMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Keeps expensive carts from starving the others. Every cart gets one {@link SearchBudget} shared by all its
+ * searches; carts whose estimated cost marks them as expensive additionally need one of a limited number of permits,
+ * waiting at most the queue timeout for one. Carts estimated to cost more than the maximum are not searched at all.
+ */
+@Component
+public class PricingAdmission {
+
+    private final long expensiveCost;
+    private final long maxCost;
+    private final Duration queueTimeout;
+    private final Duration timeBudget;
+    private final Semaphore expensiveSearches;
+    private final PricingMetrics pricingMetrics;
+
+    @Autowired
+    public PricingAdmission(PricingAdmissionProperties properties, PricingMetrics pricingMetrics) {
+        this.expensiveCost = properties.expensiveCost();
+        this.maxCost = properties.maxCost();
+        this.queueTimeout = properties.queueTimeout();
+        this.timeBudget = properties.timeBudget();
+        this.expensiveSearches = new Semaphore(properties.effectiveMaxExpensiveInProgress(), true);
+        this.pricingMetrics = pricingMetrics;
+    }
+
+    private PricingAdmission(PricingAdmission admission, PricingMetrics pricingMetrics) {
+        this.expensiveCost = admission.expensiveCost;
+        this.maxCost = admission.maxCost;
+        this.queueTimeout = admission.queueTimeout;
+        this.timeBudget = admission.timeBudget;
+        this.expensiveSearches = admission.expensiveSearches;
+        this.pricingMetrics = pricingMetrics;
+    }
+
+    /**
+     * @return an admission with the same limits that takes its permits from this one and reports to
+     * {@code pricingMetrics}
+     */
+    public PricingAdmission reportingTo(PricingMetrics pricingMetrics) {
+        return new PricingAdmission(this, pricingMetrics);
+    }
+
+    /**
+     * @param estimatedCost estimated number of search steps of the whole cart
+     * @param search        the searches of the cart to run with the budget they have to check
+     * @throws PricingRejectedException       if the cart is expensive and no permit became free in time
+     * @throws PricingBudgetExceededException if the cart costs more than the maximum or ran out of its budget
+     */
+    public <T> T admit(long estimatedCost, Function<SearchBudget, T> search) {
+        if (maxCost > 0 && estimatedCost > maxCost) {
+            pricingMetrics.recordBudgetExceeded();
+            throw new PricingBudgetExceededException("Cart is too large to be priced");
+        }
+        if (estimatedCost < expensiveCost) {
+            return withinBudget(search);
+        }
+
+        acquire();
+        try {
+            return withinBudget(search);
+        } finally {
+            expensiveSearches.release();
+        }
+    }
+
+    private void acquire() {
+        boolean acquired;
+        try {
+            acquired = expensiveSearches.tryAcquire(queueTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        pricingMetrics.recordAdmission(acquired);
+        if (!acquired) {
+            throw new PricingRejectedException("Too many large carts are being priced, please try again later");
+        }
+    }
+
+    private <T> T withinBudget(Function<SearchBudget, T> search) {
+        try {
+            return search.apply(SearchBudget.startingNow(timeBudget));
+        } catch (PricingBudgetExceededException e) {
+            pricingMetrics.recordBudgetExceeded();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.dscheffer.bookdiscount.service.admission;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param expensiveCost          carts whose estimated search cost reaches this many steps count as expensive
+ * @param maxExpensiveInProgress expensive carts priced at the same time, 0 for one per core
+ * @param queueTimeout           how long an expensive cart waits for one of them to finish before it is rejected
+ * @param timeBudget             time after which the search for any cart is given up, 0 for no limit
+ * @param maxCost                carts whose estimated search cost exceeds this many steps are rejected without
+ *                               searching, their search could neither finish within the time budget nor be kept in
+ *                               memory, 0 for no limit
+ */
+@ConfigurationProperties(prefix = "book-discount.pricing.admission")
+public record PricingAdmissionProperties(
+        @DefaultValue("1000000") long expensiveCost,
+        @DefaultValue("0") int maxExpensiveInProgress,
+        @DefaultValue("1s") Duration queueTimeout,
+        @DefaultValue("10s") Duration timeBudget,
+        @DefaultValue("10000000000") long maxCost
+) {
+
+    public int effectiveMaxExpensiveInProgress() {
+        return maxExpensiveInProgress > 0 ? maxExpensiveInProgress : Runtime.getRuntime().availableProcessors();
+    }
+}
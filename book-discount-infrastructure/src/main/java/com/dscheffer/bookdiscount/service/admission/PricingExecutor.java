@@ -0,0 +1,39 @@
+package com.dscheffer.bookdiscount.service.admission;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fixed number of threads that price the carts of batches and streams. Those carts wait for admission and for room
+ * in the quote log, so they must not run on the common fork/join pool, whose threads parallel streams everywhere
+ * else in the application rely on.
+ */
+@Component
+public class PricingExecutor implements Executor {
+
+    private final ExecutorService executor;
+
+    @Autowired
+    public PricingExecutor(PricingExecutorProperties properties) {
+        this(properties.effectiveThreads());
+    }
+
+    public PricingExecutor(int threads) {
+        this.executor = Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("cart-pricing-", 1).daemon().factory());
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
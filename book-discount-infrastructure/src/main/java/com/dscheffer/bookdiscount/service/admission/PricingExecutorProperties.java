@@ -0,0 +1,15 @@
+package com.dscheffer.bookdiscount.service.admission;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param threads threads pricing the carts of batches and streams, 0 for one per core
+ */
+@ConfigurationProperties(prefix = "book-discount.pricing.executor")
+public record PricingExecutorProperties(@DefaultValue("0") int threads) {
+
+    public int effectiveThreads() {
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -0,0 +1,34 @@
+package com.dscheffer.bookdiscount.service.cache;
+
+import com.dscheffer.bookdiscount.service.engine.CartLine;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Canonical form of a cart for pricing purposes: the sorted (quantity, unit price) pairs without the book IDs.
+ */
+public record CartSignature(List<Entry> entries) {
+
+    /**
+     * @param cartLines lines sorted by {@link CartLine#BY_QUANTITY_DESC}
+     */
+    public static CartSignature of(List<CartLine> cartLines) {
+        return new CartSignature(cartLines.stream()
+                .map(l -> new Entry(l.quantity(), l.priceCents()))
+                .toList());
+    }
+
+    /**
+     * @return the entries as {@code quantity x price} in cents, e.g. {@code [3x800, 1x1299]}
+     */
+    @Override
+    public String toString() {
+        return entries.stream()
+                .map(e -> e.quantity() + "x" + e.priceCents())
+                .collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    public record Entry(int quantity, long priceCents) {
+    }
+}
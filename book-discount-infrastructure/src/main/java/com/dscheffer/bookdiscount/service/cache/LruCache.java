@@ -0,0 +1,176 @@
+package com.dscheffer.bookdiscount.service.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Small thread safe cache that evicts the least recently used entry once {@code maxSize} is reached and treats
+ * entries older than {@code ttl} as absent. A {@code maxSize} of 0 disables caching.
+ */
+public class LruCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier ticker;
+    private final Map<K, Entry<V>> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private long generation;
+
+    public LruCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    LruCache(int maxSize, Duration ttl, LongSupplier ticker) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.ticker = ticker;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value for {@code key} or computes it with {@code loader}. The loader runs outside the lock,
+     * so concurrent misses for the same key may compute it more than once.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        if (maxSize == 0) {
+            misses.increment();
+            return loader.apply(key);
+        }
+
+        long generationAtStart;
+        synchronized (entries) {
+            var entry = entries.get(key);
+            if (entry != null && ticker.getAsLong() - entry.createdAt() < ttlNanos) {
+                hits.increment();
+                return entry.value();
+            }
+            if (entry != null) {
+                entries.remove(key);
+                evictions.increment();
+            }
+            generationAtStart = generation;
+        }
+
+        misses.increment();
+        var value = loader.apply(key);
+        synchronized (entries) {
+            // drop values computed before a clear(), they may be based on stale data
+            if (generation == generationAtStart) {
+                entries.put(key, new Entry<>(value, ticker.getAsLong()));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @return the cached value for {@code key} or {@code null} if there is none or it expired
+     */
+    public V getIfPresent(K key) {
+        synchronized (entries) {
+            var entry = entries.get(key);
+            if (entry != null && ticker.getAsLong() - entry.createdAt() < ttlNanos) {
+                hits.increment();
+                return entry.value();
+            }
+            if (entry != null) {
+                entries.remove(key);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * @return whether {@code key} has an entry that has not expired, without counting a hit or a miss
+     */
+    public boolean contains(K key) {
+        synchronized (entries) {
+            var entry = entries.get(key);
+            return entry != null && ticker.getAsLong() - entry.createdAt() < ttlNanos;
+        }
+    }
+
+    /**
+     * Stores {@code value}, restarting the time to live of {@code key}.
+     */
+    public void put(K key, V value) {
+        if (maxSize == 0) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, ticker.getAsLong()));
+        }
+    }
+
+    /**
+     * Stores {@code value} only if {@code key} still has an entry that has not expired, restarting its time to live.
+     *
+     * @return whether the value was stored
+     */
+    public boolean replace(K key, V value) {
+        synchronized (entries) {
+            var entry = entries.get(key);
+            if (entry == null || ticker.getAsLong() - entry.createdAt() >= ttlNanos) {
+                return false;
+            }
+            entries.put(key, new Entry<>(value, ticker.getAsLong()));
+            return true;
+        }
+    }
+
+    /**
+     * @return the removed value or {@code null} if there was none
+     */
+    public V remove(K key) {
+        synchronized (entries) {
+            var entry = entries.remove(key);
+            return entry != null ? entry.value() : null;
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    private record Entry<V>(V value, long createdAt) {
+    }
+}
@@ -0,0 +1,73 @@
+package com.dscheffer.bookdiscount.service.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Cache of unrounded engine results keyed by {@link CartSignature}. A {@link #bypassed()} cache calculates the price
+ * on every lookup and stores nothing.
+ */
+@Slf4j
+@Component
+public class PriceCache {
+
+    private final LruCache<CartSignature, BigDecimal> cache;
+    private final boolean bypassed;
+
+    @Autowired
+    public PriceCache(PriceCacheProperties properties) {
+        this(properties, false);
+    }
+
+    private PriceCache(PriceCacheProperties properties, boolean bypassed) {
+        this.cache = new LruCache<>(properties.maxSize(), properties.ttl());
+        this.bypassed = bypassed;
+    }
+
+    /**
+     * @return a cache of its own that calculates every price, so every cart looked up in it is searched
+     */
+    public static PriceCache bypassed() {
+        return new PriceCache(new PriceCacheProperties(0, Duration.ZERO), true);
+    }
+
+    public BigDecimal get(CartSignature signature, Supplier<BigDecimal> calculation) {
+        if (bypassed) {
+            return calculation.get();
+        }
+        return cache.get(signature, s -> calculation.get());
+    }
+
+    /**
+     * @return whether {@link #get} would answer from the cache, without counting a hit or a miss
+     */
+    public boolean contains(CartSignature signature) {
+        return !bypassed && cache.contains(signature);
+    }
+
+    public void clear() {
+        log.debug("Clearing price cache with {} entries", cache.size());
+        cache.clear();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public long hits() {
+        return cache.hits();
+    }
+
+    public long misses() {
+        return cache.misses();
+    }
+
+    public long evictions() {
+        return cache.evictions();
+    }
+}
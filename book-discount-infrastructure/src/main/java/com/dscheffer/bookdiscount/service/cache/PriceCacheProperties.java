@@ -0,0 +1,13 @@
+package com.dscheffer.bookdiscount.service.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "book-discount.price-cache")
+public record PriceCacheProperties(
+        @DefaultValue("10000") int maxSize,
+        @DefaultValue("1h") Duration ttl
+) {
+}
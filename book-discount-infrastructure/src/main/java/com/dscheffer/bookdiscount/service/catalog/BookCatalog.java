@@ -0,0 +1,49 @@
+package com.dscheffer.bookdiscount.service.catalog;
+
+import com.dscheffer.bookdiscount.repository.BookRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds the current {@link CatalogSnapshot}. It is loaded on startup and replaced as a whole on every refresh, so
+ * readers never see a partially loaded catalog and never touch the database.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookCatalog {
+
+    private final BookRepository bookRepository;
+
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>(CatalogSnapshot.EMPTY);
+
+    // not synchronized, a virtual thread blocking on the database inside a monitor would pin its carrier thread
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    public CatalogSnapshot snapshot() {
+        return snapshot.get();
+    }
+
+    @PostConstruct
+    @Scheduled(
+            initialDelayString = "${book-discount.catalog.refresh-interval:PT5M}",
+            fixedDelayString = "${book-discount.catalog.refresh-interval:PT5M}"
+    )
+    public CatalogSnapshot refresh() {
+        reloadLock.lock();
+        try {
+            var refreshed = CatalogSnapshot.of(snapshot.get().version() + 1, bookRepository.findAllBooks());
+            snapshot.set(refreshed);
+            log.info("Loaded catalog version {} with {} books", refreshed.version(), refreshed.size());
+            return refreshed;
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+}
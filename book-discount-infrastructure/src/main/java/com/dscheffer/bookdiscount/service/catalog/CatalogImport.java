@@ -0,0 +1,230 @@
+package com.dscheffer.bookdiscount.service.catalog;
+
+import com.dscheffer.bookdiscount.dto.CatalogImportResult;
+import com.dscheffer.bookdiscount.service.CatalogImportRunningException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Imports books from CSV with the columns {@code name,price[,series]} and an optional header line. Books are
+ * identified by name: known ones get the new price and series, unknown ones are added.
+ * <p>
+ * The file is read line by line and upserted with plain JDBC in batches that are committed one by one, so memory use
+ * does not depend on the size of the file and rows are locked for one batch at most. Pricing keeps using the current
+ * {@link CatalogSnapshot} until the whole file is imported and the catalog is reloaded. A failed import leaves the
+ * batches before the failure committed; importing the file again is safe.
+ * <p>
+ * Meter: {@code bookdiscount.catalog.import.rows} tagged with the result, {@code imported} or {@code rejected}.
+ */
+@Slf4j
+@Component
+public class CatalogImport {
+
+    // standard SQL MERGE, supported by H2 and PostgreSQL 15+; books that did not change are not written at all
+    static final String UPSERT = """
+            merge into book b
+            using (values (cast(? as varchar(100)), cast(? as decimal(10, 2)), cast(? as varchar(100)))) s (name, price, series)
+            on b.name = s.name
+            when matched and (b.price <> s.price or b.series is distinct from s.series) then
+                update set price = s.price, series = s.series
+            when not matched then
+                insert (name, price, series) values (s.name, s.price, s.series)""";
+
+    private static final int MAX_NAME_LENGTH = 100;
+    private static final int MAX_SERIES_LENGTH = 100;
+    private static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99");
+    private static final long PROGRESS_LOG_ROWS = 100_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BookCatalog bookCatalog;
+    private final CatalogImportProperties properties;
+    private final Counter importedRows;
+    private final Counter rejectedRows;
+    private final ReentrantLock importLock = new ReentrantLock();
+
+    public CatalogImport(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            BookCatalog bookCatalog,
+            CatalogImportProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bookCatalog = bookCatalog;
+        this.properties = properties;
+        this.importedRows = rowCounter(meterRegistry, "imported");
+        this.rejectedRows = rowCounter(meterRegistry, "rejected");
+    }
+
+    /**
+     * Rows that fail validation are skipped and reported, the rest of the file is still imported.
+     *
+     * @throws CatalogImportRunningException if another import has not finished yet
+     */
+    public CatalogImportResult importCsv(Reader csv) throws IOException {
+        if (!importLock.tryLock()) {
+            throw new CatalogImportRunningException("A catalog import is already running");
+        }
+        try {
+            return importLines(csv instanceof BufferedReader reader ? reader : new BufferedReader(csv));
+        } finally {
+            importLock.unlock();
+        }
+    }
+
+    private CatalogImportResult importLines(BufferedReader reader) throws IOException {
+        var start = System.nanoTime();
+        var batch = new ArrayList<BookRow>(properties.batchSize());
+        var errors = new ArrayList<String>();
+        long lineNumber = 0;
+        long rowsRead = 0;
+        long rowsImported = 0;
+        long rowsRejected = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || rowsRead == 0 && rowsRejected == 0 && isHeader(line)) {
+                continue;
+            }
+            rowsRead++;
+            try {
+                batch.add(BookRow.parse(line));
+            } catch (IllegalArgumentException e) {
+                rowsRejected++;
+                rejectedRows.increment();
+                if (errors.size() < properties.maxReportedErrors()) {
+                    errors.add("Line " + lineNumber + ": " + e.getMessage());
+                }
+            }
+            if (batch.size() == properties.batchSize()) {
+                rowsImported += upsert(batch);
+            }
+            if (rowsRead % PROGRESS_LOG_ROWS == 0) {
+                log.info("Catalog import read {} rows at {} rows/s", rowsRead, rowsPerSecond(rowsRead, start));
+            }
+        }
+        rowsImported += upsert(batch);
+        bookCatalog.refresh();
+
+        var result = new CatalogImportResult(
+                rowsRead, rowsImported, rowsRejected, List.copyOf(errors),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), rowsPerSecond(rowsRead, start)
+        );
+        log.info("Imported {} of {} catalog rows in {} ms, {} rows/s", result.rowsImported(), result.rowsRead(),
+                result.durationMillis(), result.rowsPerSecond());
+        return result;
+    }
+
+    private int upsert(List<BookRow> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(UPSERT, batch, batch.size(), (statement, row) -> {
+                    statement.setString(1, row.name());
+                    statement.setBigDecimal(2, row.price());
+                    statement.setString(3, row.series());
+                })
+        );
+        var upserted = batch.size();
+        importedRows.increment(upserted);
+        batch.clear();
+        return upserted;
+    }
+
+    private static boolean isHeader(String line) {
+        return line.strip().regionMatches(true, 0, "name,", 0, 5);
+    }
+
+    private static long rowsPerSecond(long rows, long startNanos) {
+        var nanos = Math.max(1, System.nanoTime() - startNanos);
+        return rows * TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    private static Counter rowCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("bookdiscount.catalog.import.rows")
+                .description("Catalog rows read by imports")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param series {@code null} for books without a series
+     */
+    record BookRow(String name, BigDecimal price, String series) {
+
+        /**
+         * @throws IllegalArgumentException if the line is not a valid book
+         */
+        static BookRow parse(String line) {
+            var fields = fields(line);
+            if (fields.size() < 2 || fields.size() > 3) {
+                throw new IllegalArgumentException("Expected name,price[,series] but got " + fields.size() + " columns");
+            }
+            var name = fields.get(0).strip();
+            if (name.isEmpty() || name.length() > MAX_NAME_LENGTH) {
+                throw new IllegalArgumentException("Name must have 1 to " + MAX_NAME_LENGTH + " characters");
+            }
+            var series = fields.size() == 3 && !fields.get(2).isBlank() ? fields.get(2).strip() : null;
+            if (series != null && series.length() > MAX_SERIES_LENGTH) {
+                throw new IllegalArgumentException("Series must have at most " + MAX_SERIES_LENGTH + " characters");
+            }
+            return new BookRow(name, price(fields.get(1).strip()), series);
+        }
+
+        private static BigDecimal price(String value) {
+            BigDecimal price;
+            try {
+                price = new BigDecimal(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid price '" + value + "'");
+            }
+            if (price.signum() < 0 || price.compareTo(MAX_PRICE) > 0 || price.stripTrailingZeros().scale() > 2) {
+                throw new IllegalArgumentException("Invalid price " + value + ", expected 0 to " + MAX_PRICE + " with at most two decimals");
+            }
+            return price.setScale(2);
+        }
+
+        // RFC 4180 fields on a single line: quoted fields may contain commas and doubled quotes
+        private static List<String> fields(String line) {
+            var fields = new ArrayList<String>(3);
+            var field = new StringBuilder();
+            var quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                var c = line.charAt(i);
+                if (quoted && c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = !quoted;
+                } else if (c == ',' && !quoted) {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            if (quoted) {
+                throw new IllegalArgumentException("Unterminated quote");
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
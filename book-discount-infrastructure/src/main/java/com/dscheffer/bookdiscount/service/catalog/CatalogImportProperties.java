@@ -0,0 +1,15 @@
+package com.dscheffer.bookdiscount.service.catalog;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param batchSize         rows upserted and committed together
+ * @param maxReportedErrors rejected rows whose reason is reported at most
+ */
+@ConfigurationProperties(prefix = "book-discount.catalog.import")
+public record CatalogImportProperties(
+        @DefaultValue("1000") int batchSize,
+        @DefaultValue("100") int maxReportedErrors
+) {
+}
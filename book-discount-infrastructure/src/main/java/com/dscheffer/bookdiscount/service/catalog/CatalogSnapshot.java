@@ -0,0 +1,164 @@
+package com.dscheffer.bookdiscount.service.catalog;
+
+import com.dscheffer.bookdiscount.dto.Book;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Immutable in-memory copy of the book table. Prices are kept in cents and looked up by binary search over the
+ * sorted book IDs. Series are numbered densely, books without a series share series 0.
+ * <p>
+ * The {@link #fingerprint() fingerprint} is derived from the books alone, so it stays the same across refreshes,
+ * restarts and instances as long as the catalog does not change, unlike the {@link #version() version}.
+ */
+public final class CatalogSnapshot {
+
+    public static final CatalogSnapshot EMPTY = new CatalogSnapshot(0, List.of(), Instant.EPOCH);
+
+    private static final int FINGERPRINT_BYTES = 12;
+
+    private final long version;
+    private final String fingerprint;
+    private final Instant loadedAt;
+    private final long[] ids;
+    private final long[] priceCents;
+    private final int[] series;
+    private final List<List<Integer>> seriesBooks;
+    private final List<Book> books;
+
+    private CatalogSnapshot(long version, List<Book> books, Instant loadedAt) {
+        var sorted = books.stream()
+                .sorted(Comparator.comparing(Book::id))
+                .toList();
+        this.version = version;
+        this.loadedAt = loadedAt;
+        this.ids = sorted.stream().mapToLong(Book::id).toArray();
+        this.priceCents = sorted.stream().mapToLong(CatalogSnapshot::toCents).toArray();
+        var seriesNumbers = new HashMap<String, Integer>();
+        this.series = sorted.stream()
+                .mapToInt(b -> b.series() == null ? 0 : seriesNumbers.computeIfAbsent(b.series(), s -> seriesNumbers.size() + 1))
+                .toArray();
+        var seriesBooks = new ArrayList<List<Integer>>();
+        for (int index = 0; index < series.length; index++) {
+            while (seriesBooks.size() <= series[index]) {
+                seriesBooks.add(new ArrayList<>());
+            }
+            seriesBooks.get(series[index]).add(index);
+        }
+        this.seriesBooks = seriesBooks.stream().map(List::copyOf).toList();
+        this.books = sorted;
+        this.fingerprint = fingerprint(sorted, priceCents);
+    }
+
+    public static CatalogSnapshot of(long version, List<Book> books) {
+        return new CatalogSnapshot(version, books, Instant.now());
+    }
+
+    /**
+     * @return the position of the book in this snapshot or a negative value if the ID is unknown
+     */
+    public int indexOf(long bookId) {
+        return Arrays.binarySearch(ids, bookId);
+    }
+
+    public long priceCents(int index) {
+        return priceCents[index];
+    }
+
+    /**
+     * @return the number of the book's series, 0 for books without a series
+     */
+    public int series(int index) {
+        return series[index];
+    }
+
+    /**
+     * @return the positions of the series' books ordered by ID, empty for an unknown series
+     */
+    public List<Integer> seriesBooks(int series) {
+        return series < seriesBooks.size() ? seriesBooks.get(series) : List.of();
+    }
+
+    public long bookId(int index) {
+        return ids[index];
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @return all books ordered by ID
+     */
+    public List<Book> books() {
+        return books;
+    }
+
+    /**
+     * @return the books with an ID greater than {@code afterId} ordered by ID, at most {@code limit}
+     */
+    public List<Book> booksAfter(long afterId, int limit) {
+        var index = indexOf(afterId);
+        var from = index >= 0 ? index + 1 : -index - 1;
+        return books.subList(from, (int) Math.min(ids.length, (long) from + limit));
+    }
+
+    /**
+     * @return a hex digest of the IDs, names, prices and series of all books
+     */
+    public String fingerprint() {
+        return fingerprint;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public Instant loadedAt() {
+        return loadedAt;
+    }
+
+    private static long toCents(Book book) {
+        try {
+            return book.price().movePointRight(2).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalStateException("Price of book " + book.id() + " has more than two decimals", e);
+        }
+    }
+
+    private static String fingerprint(List<Book> books, long[] priceCents) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        var numbers = ByteBuffer.allocate(2 * Long.BYTES);
+        for (int i = 0; i < books.size(); i++) {
+            var book = books.get(i);
+            digest.update(numbers.clear().putLong(book.id()).putLong(priceCents[i]).array());
+            updateWithString(digest, book.name());
+            updateWithString(digest, book.series());
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, FINGERPRINT_BYTES);
+    }
+
+    // length prefixed, so a name and a series cannot run into each other, -1 for null
+    private static void updateWithString(MessageDigest digest, String value) {
+        var bytes = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes == null ? -1 : bytes.length).array());
+        if (bytes != null) {
+            digest.update(bytes);
+        }
+    }
+}
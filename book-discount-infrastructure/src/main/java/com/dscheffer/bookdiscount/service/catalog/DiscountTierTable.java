@@ -0,0 +1,51 @@
+package com.dscheffer.bookdiscount.service.catalog;
+
+import com.dscheffer.bookdiscount.entity.DiscountTierEntity;
+import com.dscheffer.bookdiscount.repository.DiscountTierRepository;
+import com.dscheffer.bookdiscount.service.cache.PriceCache;
+import com.dscheffer.bookdiscount.service.engine.DiscountTiers;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Holds the {@link DiscountTiers} compiled from the {@code discount_tier} table. A reload swaps the whole table at
+ * once; calculations already running keep using the tiers they started with.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DiscountTierTable {
+
+    private final DiscountTierRepository discountTierRepository;
+    private final PriceCache priceCache;
+
+    private final AtomicReference<DiscountTiers> discountTiers = new AtomicReference<>(DiscountTiers.DEFAULT);
+
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    public DiscountTiers discountTiers() {
+        return discountTiers.get();
+    }
+
+    @PostConstruct
+    public DiscountTiers reload() {
+        reloadLock.lock();
+        try {
+            var reloaded = DiscountTiers.of(discountTierRepository.findAll().stream()
+                    .collect(Collectors.toMap(DiscountTierEntity::getSetSize, DiscountTierEntity::getFactor)));
+            discountTiers.set(reloaded);
+            // cached prices are keyed by cart only, so they are stale now
+            priceCache.clear();
+            log.info("Loaded discount tiers {}", reloaded.factors());
+            return reloaded;
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+}
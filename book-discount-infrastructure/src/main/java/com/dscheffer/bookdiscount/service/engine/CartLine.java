@@ -0,0 +1,22 @@
+package com.dscheffer.bookdiscount.service.engine;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+
+/**
+ * A single title of a shopping cart as seen by a {@link PriceCalculationEngine}.
+ */
+public record CartLine(long bookId, long priceCents, int quantity) {
+
+    /**
+     * Order in which engines expect their input: most copies first, ties broken by the higher price and then the
+     * book ID so that the result never depends on the order the catalog returned the books in.
+     */
+    public static final Comparator<CartLine> BY_QUANTITY_DESC = Comparator.comparingInt(CartLine::quantity).reversed()
+            .thenComparing(Comparator.comparingLong(CartLine::priceCents).reversed())
+            .thenComparingLong(CartLine::bookId);
+
+    public BigDecimal price() {
+        return BigDecimal.valueOf(priceCents, 2);
+    }
+}
@@ -0,0 +1,117 @@
+package com.dscheffer.bookdiscount.service.engine;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable discount factor per discount set size, compiled into basis points indexed by set size. Set sizes
+ * without a tier are not discounted.
+ */
+public final class DiscountTiers {
+
+    public static final int NO_DISCOUNT = 10_000;
+
+    public static final DiscountTiers DEFAULT = of(Map.of(
+            2, new BigDecimal("0.95"),
+            3, new BigDecimal("0.90"),
+            4, new BigDecimal("0.80"),
+            5, new BigDecimal("0.75")
+    ));
+
+    private final int[] basisPoints;
+    private final long[] setCosts;
+    private final int largestDiscountedSetSize;
+    private final long fingerprint;
+
+    private DiscountTiers(int[] basisPoints) {
+        var largest = 1;
+        for (int setSize = 1; setSize < basisPoints.length; setSize++) {
+            if (basisPoints[setSize] < NO_DISCOUNT) {
+                largest = setSize;
+            }
+        }
+        this.largestDiscountedSetSize = largest;
+        this.basisPoints = new int[largest + 1];
+        this.setCosts = new long[largest + 1];
+        for (int setSize = 1; setSize <= largest; setSize++) {
+            this.basisPoints[setSize] = basisPoints[setSize];
+            this.setCosts[setSize] = (long) setSize * basisPoints[setSize];
+        }
+        this.fingerprint = fingerprint(this.basisPoints);
+    }
+
+    // 64 bit FNV-1a over the basis points of every set size up to the largest discounted one
+    private static long fingerprint(int[] basisPoints) {
+        var hash = 0xcbf29ce484222325L;
+        for (int setSize = 1; setSize < basisPoints.length; setSize++) {
+            hash ^= basisPoints[setSize];
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a set size is not positive or a factor is not in (0, 1] with at most
+     *                                  four decimals
+     */
+    public static DiscountTiers of(Map<Integer, BigDecimal> factorsBySetSize) {
+        var largestSetSize = factorsBySetSize.keySet().stream().mapToInt(Integer::intValue).max().orElse(1);
+        var basisPoints = new int[largestSetSize + 1];
+        Arrays.fill(basisPoints, NO_DISCOUNT);
+        factorsBySetSize.forEach((setSize, factor) -> {
+            if (setSize < 1) {
+                throw new IllegalArgumentException("Invalid discount set size " + setSize);
+            }
+            if (factor.signum() <= 0 || factor.compareTo(BigDecimal.ONE) > 0 || factor.stripTrailingZeros().scale() > 4) {
+                throw new IllegalArgumentException("Invalid discount factor " + factor + " for set size " + setSize);
+            }
+            basisPoints[setSize] = factor.movePointRight(4).intValueExact();
+        });
+        return new DiscountTiers(basisPoints);
+    }
+
+    public int basisPoints(int setSize) {
+        return setSize <= largestDiscountedSetSize ? basisPoints[setSize] : NO_DISCOUNT;
+    }
+
+    public BigDecimal discountFactor(int setSize) {
+        return BigDecimal.valueOf(basisPoints(setSize), 4);
+    }
+
+    /**
+     * @return {@code setSize * basisPoints(setSize)}, the cost of a discount set in basis points of the unit price
+     */
+    public long setCost(int setSize) {
+        return setSize <= largestDiscountedSetSize ? setCosts[setSize] : (long) setSize * NO_DISCOUNT;
+    }
+
+    /**
+     * Largest set size that still earns a discount. Bigger sets can always be split without paying more.
+     */
+    public int largestDiscountedSetSize() {
+        return largestDiscountedSetSize;
+    }
+
+    /**
+     * Hash identifying the discount factors, used to detect precomputed data that was built for other tiers.
+     */
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return the discounted set sizes and their factors
+     */
+    public Map<Integer, BigDecimal> factors() {
+        var factors = new TreeMap<Integer, BigDecimal>();
+        for (int setSize = 1; setSize <= largestDiscountedSetSize; setSize++) {
+            if (basisPoints[setSize] < NO_DISCOUNT) {
+                factors.put(setSize, discountFactor(setSize));
+            }
+        }
+        return Collections.unmodifiableMap(factors);
+    }
+}
@@ -0,0 +1,125 @@
+package com.dscheffer.bookdiscount.service.engine;
+
+import java.util.Arrays;
+
+/**
+ * Cheapest grouping of a cart whose titles all share one unit price, so that only the sizes of the discount sets
+ * matter.
+ * <p>
+ * By the Gale-Ryser theorem a multiset of set sizes can be filled with the cart's copies iff it is majorized by the
+ * "layers" of the cart, where layer {@code t} holds every title with at least {@code t} copies. With {@code c_k}
+ * sets of size {@code k} that is {@code sum_j (j - k)^+ * c_j <= sum_j (j - k)^+ * h_j} for every {@code k},
+ * {@code h_j} being the number of layers with {@code j} titles. The solver runs a dynamic program over the set sizes
+ * from largest to smallest whose state is just the number of sets chosen so far and the left hand side of the next
+ * constraint.
+ */
+final class GroupingSolver {
+
+    static final long INFEASIBLE = Long.MAX_VALUE;
+
+    private GroupingSolver() {
+    }
+
+    /**
+     * @param quantities positive quantities sorted in descending order
+     * @return the cheapest sum of {@link DiscountTiers#setCost(int)} over all feasible groupings
+     */
+    static long cheapestGrouping(int[] quantities, DiscountTiers discountTiers) {
+        if (quantities.length == 0) {
+            return 0;
+        }
+        return solve(quantities, discountTiers).cost();
+    }
+
+    /**
+     * @param quantities positive quantities sorted in descending order
+     * @return the number of discount sets per set size of a cheapest grouping, indexed by set size
+     */
+    static int[] cheapestComposition(int[] quantities, DiscountTiers discountTiers) {
+        var composition = new int[quantities.length + 1];
+        if (quantities.length == 0) {
+            return composition;
+        }
+
+        var solution = solve(quantities, discountTiers);
+        composition[1] = solution.singles();
+        var y = solution.y();
+        var sets = solution.sets();
+        for (int setSize = 2; setSize < solution.tables().length - 1; setSize++) {
+            var cost = solution.tables()[setSize][y][sets];
+            var previous = solution.tables()[setSize + 1];
+            var previousY = y - sets;
+            var previousSets = 0;
+            while (previousSets >= previous[previousY].length
+                    || previous[previousY][previousSets] == INFEASIBLE
+                    || previous[previousY][previousSets] + discountTiers.setCost(setSize) * (sets - previousSets) != cost) {
+                previousSets++;
+            }
+            composition[setSize] = sets - previousSets;
+            y = previousY;
+            sets = previousSets;
+        }
+        return composition;
+    }
+
+    private static Solution solve(int[] quantities, DiscountTiers discountTiers) {
+        var totalCopies = Arrays.stream(quantities).sum();
+        var largestSetSize = Math.min(quantities.length, discountTiers.largestDiscountedSetSize());
+        var bounds = majorizationBounds(quantities, largestSetSize);
+
+        // tables[s][y][c]: c sets of size >= s chosen, y = sum over those sets of (setSize - s + 1)
+        var tables = new long[Math.max(largestSetSize, 1) + 2][][];
+        tables[largestSetSize + 1] = new long[][]{{0}};
+        for (int setSize = largestSetSize; setSize >= 2; setSize--) {
+            var cheapest = tables[setSize + 1];
+            var bound = bounds[setSize - 1];
+            var setCost = discountTiers.setCost(setSize);
+            var next = new long[bound + 1][bound + 1];
+            for (long[] row : next) {
+                Arrays.fill(row, INFEASIBLE);
+            }
+            for (int y = 0; y < cheapest.length; y++) {
+                var running = INFEASIBLE;
+                for (int sets = 0; y + sets <= bound; sets++) {
+                    var previous = sets < cheapest[y].length ? cheapest[y][sets] : INFEASIBLE;
+                    running = Math.min(running == INFEASIBLE ? INFEASIBLE : running + setCost, previous);
+                    next[y + sets][sets] = running;
+                }
+            }
+            tables[setSize] = next;
+        }
+
+        var cheapest = tables[2];
+        var best = new Solution(tables, 0, 0, 0, INFEASIBLE);
+        for (int y = 0; y < cheapest.length; y++) {
+            for (int sets = 0; sets < cheapest[y].length; sets++) {
+                var singles = totalCopies - y - sets;
+                if (cheapest[y][sets] != INFEASIBLE && singles >= 0) {
+                    var cost = cheapest[y][sets] + discountTiers.setCost(1) * singles;
+                    if (cost < best.cost()) {
+                        best = new Solution(tables, y, sets, singles, cost);
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return {@code bounds[k] = sum_j (j - k)^+ * h_j} for {@code k < largestSetSize}
+     */
+    private static int[] majorizationBounds(int[] quantities, int largestSetSize) {
+        var bounds = new int[largestSetSize];
+        for (int layerSize = 1; layerSize <= quantities.length; layerSize++) {
+            var nextQuantity = layerSize < quantities.length ? quantities[layerSize] : 0;
+            var layers = quantities[layerSize - 1] - nextQuantity;
+            for (int k = 0; k < Math.min(layerSize, largestSetSize); k++) {
+                bounds[k] += (layerSize - k) * layers;
+            }
+        }
+        return bounds;
+    }
+
+    private record Solution(long[][][] tables, int y, int sets, int singles, long cost) {
+    }
+}
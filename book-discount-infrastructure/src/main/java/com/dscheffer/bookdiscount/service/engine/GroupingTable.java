@@ -0,0 +1,199 @@
+package com.dscheffer.bookdiscount.service.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Precomputed cheapest grouping of every cart with at most {@code maxTitles} titles and {@code maxCopies} copies per
+ * title, all sharing one unit price. Such carts are fully described by their quantities sorted in descending order,
+ * so the table stores the number of sets per set size for each sorted quantity vector.
+ * <p>
+ * File layout, big endian: the magic number {@code BDGT}, the format version, the
+ * {@link DiscountTiers#fingerprint() fingerprint} of the tiers the table was computed for, {@code maxTitles} and
+ * {@code maxCopies}, followed by {@code maxTitles} shorts per quantity vector. Vectors are ranked in the
+ * combinatorial number system, so a lookup is a single index computation.
+ */
+public final class GroupingTable {
+
+    private static final int MAGIC = 0x42444754;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+
+    private final ByteBuffer entries;
+    private final long tiersFingerprint;
+    private final int maxTitles;
+    private final int maxCopies;
+    private final long[][] binomials;
+
+    private GroupingTable(ByteBuffer entries, long tiersFingerprint, int maxTitles, int maxCopies) {
+        this.entries = entries;
+        this.tiersFingerprint = tiersFingerprint;
+        this.maxTitles = maxTitles;
+        this.maxCopies = maxCopies;
+        this.binomials = binomials(maxTitles, maxCopies);
+    }
+
+    /**
+     * Memory-maps a table written by {@link #write(Path, int, int, DiscountTiers)}.
+     *
+     * @throws IOException if the file can not be read or is not a grouping table
+     */
+    public static GroupingTable open(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a grouping table: " + path);
+            }
+            var version = buffer.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported grouping table version " + version + ": " + path);
+            }
+            var fingerprint = buffer.getLong();
+            var maxTitles = buffer.getInt();
+            var maxCopies = buffer.getInt();
+            if (!validBounds(maxTitles, maxCopies)
+                    || buffer.remaining() != entryBytes(maxTitles) * vectorCount(binomials(maxTitles, maxCopies), maxTitles, maxCopies)) {
+                throw new IOException("Corrupt grouping table: " + path);
+            }
+            return new GroupingTable(buffer.slice(), fingerprint, maxTitles, maxCopies);
+        }
+    }
+
+    /**
+     * Computes the cheapest grouping of every sorted quantity vector within the bounds and writes the table.
+     *
+     * @throws IllegalArgumentException if the bounds are not positive or the table would not fit into one file mapping
+     */
+    public static void write(Path path, int maxTitles, int maxCopies, DiscountTiers discountTiers) throws IOException {
+        if (!validBounds(maxTitles, maxCopies)) {
+            throw new IllegalArgumentException("Invalid grouping table bounds " + maxTitles + " x " + maxCopies);
+        }
+        var binomials = binomials(maxTitles, maxCopies);
+        var size = HEADER_BYTES + entryBytes(maxTitles) * vectorCount(binomials, maxTitles, maxCopies);
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Grouping table for " + maxTitles + " x " + maxCopies + " is too large");
+        }
+
+        var buffer = ByteBuffer.allocate((int) size);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(discountTiers.fingerprint()).putInt(maxTitles).putInt(maxCopies);
+        var table = new GroupingTable(buffer.slice(), discountTiers.fingerprint(), maxTitles, maxCopies);
+        table.fill(new int[maxTitles], 0, maxCopies, discountTiers);
+
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            buffer.rewind();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * @return whether the table was computed for the given tiers
+     */
+    public boolean matches(DiscountTiers discountTiers) {
+        return tiersFingerprint == discountTiers.fingerprint();
+    }
+
+    /**
+     * @param quantities positive quantities sorted in descending order
+     * @return whether the table holds an entry for the quantities
+     */
+    public boolean covers(int[] quantities) {
+        return quantities.length <= maxTitles && (quantities.length == 0 || quantities[0] <= maxCopies);
+    }
+
+    public int maxTitles() {
+        return maxTitles;
+    }
+
+    public int maxCopies() {
+        return maxCopies;
+    }
+
+    /**
+     * @param quantities positive quantities sorted in descending order, {@link #covers(int[]) covered} by the table
+     * @return the number of discount sets per set size of a cheapest grouping, indexed by set size
+     */
+    int[] composition(int[] quantities) {
+        var offset = entryOffset(quantities);
+        var composition = new int[maxTitles + 1];
+        for (int setSize = 1; setSize <= maxTitles; setSize++) {
+            composition[setSize] = entries.getShort(offset + (setSize - 1) * Short.BYTES);
+        }
+        return composition;
+    }
+
+    /**
+     * Same result as {@link GroupingSolver#cheapestGrouping(int[], DiscountTiers)} for tiers the table
+     * {@link #matches(DiscountTiers) matches}.
+     */
+    long cheapestGrouping(int[] quantities, DiscountTiers discountTiers) {
+        var offset = entryOffset(quantities);
+        var cost = 0L;
+        for (int setSize = 1; setSize <= maxTitles; setSize++) {
+            cost += entries.getShort(offset + (setSize - 1) * Short.BYTES) * discountTiers.setCost(setSize);
+        }
+        return cost;
+    }
+
+    // quantities[0..position) are fixed, the remaining ones are at most 'limit'
+    private void fill(int[] quantities, int position, int limit, DiscountTiers discountTiers) {
+        if (position == maxTitles) {
+            var titles = 0;
+            while (titles < maxTitles && quantities[titles] > 0) {
+                titles++;
+            }
+            var nonZero = Arrays.copyOf(quantities, titles);
+            var composition = GroupingSolver.cheapestComposition(nonZero, discountTiers);
+            var offset = entryOffset(nonZero);
+            for (int setSize = 1; setSize < composition.length; setSize++) {
+                entries.putShort(offset + (setSize - 1) * Short.BYTES, (short) composition[setSize]);
+            }
+            return;
+        }
+        for (int quantity = 0; quantity <= limit; quantity++) {
+            quantities[position] = quantity;
+            fill(quantities, position + 1, quantity, discountTiers);
+        }
+    }
+
+    private int entryOffset(int[] quantities) {
+        // ascending values padded with zeros, x_i + i is strictly increasing
+        var rank = 0L;
+        for (int i = 0; i < maxTitles; i++) {
+            var descendingIndex = maxTitles - 1 - i;
+            var quantity = descendingIndex < quantities.length ? quantities[descendingIndex] : 0;
+            rank += binomials[quantity + i][i + 1];
+        }
+        return (int) (rank * entryBytes(maxTitles));
+    }
+
+    // the count of a set size never exceeds the number of copies in the cart
+    private static boolean validBounds(int maxTitles, int maxCopies) {
+        return maxTitles >= 1 && maxCopies >= 1 && (long) maxTitles * maxCopies <= Short.MAX_VALUE;
+    }
+
+    private static long entryBytes(int maxTitles) {
+        return (long) maxTitles * Short.BYTES;
+    }
+
+    private static long vectorCount(long[][] binomials, int maxTitles, int maxCopies) {
+        return binomials[maxCopies + maxTitles][maxTitles];
+    }
+
+    private static long[][] binomials(int maxTitles, int maxCopies) {
+        var binomials = new long[maxCopies + maxTitles + 1][maxTitles + 1];
+        for (int n = 0; n < binomials.length; n++) {
+            binomials[n][0] = 1;
+            for (int k = 1; k <= Math.min(n, maxTitles); k++) {
+                binomials[n][k] = Math.min(binomials[n - 1][k - 1] + binomials[n - 1][k], Integer.MAX_VALUE + 1L);
+            }
+        }
+        return binomials;
+    }
+}
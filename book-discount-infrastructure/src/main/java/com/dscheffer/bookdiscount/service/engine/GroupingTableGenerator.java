@@ -0,0 +1,40 @@
+package com.dscheffer.bookdiscount.service.engine;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Writes a {@link GroupingTable}. Arguments: the output file, optionally the maximum number of titles and copies per
+ * title (default 5 and 20) and the discount tiers as {@code setSize=factor} pairs separated by commas (default
+ * {@link DiscountTiers#DEFAULT}). The tiers have to match the ones in the database, otherwise the table is ignored.
+ */
+public final class GroupingTableGenerator {
+
+    private GroupingTableGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 4) {
+            System.err.println("Usage: GroupingTableGenerator <file> [maxTitles] [maxCopies] [2=0.95,3=0.90,...]");
+            System.exit(1);
+        }
+        var path = Path.of(args[0]);
+        var maxTitles = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        var maxCopies = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        var discountTiers = args.length > 3 ? parseTiers(args[3]) : DiscountTiers.DEFAULT;
+
+        var start = System.nanoTime();
+        GroupingTable.write(path, maxTitles, maxCopies, discountTiers);
+        System.out.printf("Wrote grouping table for %d titles x %d copies with tiers %s to %s in %d ms%n",
+                maxTitles, maxCopies, discountTiers.factors(), path, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static DiscountTiers parseTiers(String tiers) {
+        return DiscountTiers.of(Arrays.stream(tiers.split(","))
+                .map(tier -> tier.split("="))
+                .collect(Collectors.toMap(tier -> Integer.parseInt(tier[0].trim()), tier -> new BigDecimal(tier[1].trim()))));
+    }
+}
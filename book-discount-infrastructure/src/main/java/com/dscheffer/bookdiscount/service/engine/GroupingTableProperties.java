@@ -0,0 +1,12 @@
+package com.dscheffer.bookdiscount.service.engine;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+/**
+ * @param path file written by the {@link GroupingTableGenerator}, no table is used if unset
+ */
+@ConfigurationProperties(prefix = "book-discount.pricing.grouping-table")
+public record GroupingTableProperties(Path path) {
+}
@@ -0,0 +1,278 @@
+package com.dscheffer.bookdiscount.service.engine;
+
+import com.dscheffer.bookdiscount.service.PricingBudgetExceededException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Polynomial time engine. Carts whose titles all share one unit price are looked up in the {@link GroupingTable} if
+ * one is configured and covers the cart, otherwise they are solved by the {@link GroupingSolver}.
+ * <p>
+ * Carts mixing unit prices are priced by a memoized search over every way to split them into discount sets. Both
+ * find the cheapest grouping of the cart, so raising a unit price never lowers the total.
+ * <p>
+ * All arithmetic is done on {@code long} values in cents times basis points; the result is converted to a
+ * {@link BigDecimal} once.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "book-discount.pricing.engine", havingValue = "optimal", matchIfMissing = true)
+public class OptimalPriceCalculationEngine implements PriceCalculationEngine {
+
+    private final GroupingTable groupingTable;
+    private final SearchListener searchListener;
+    private final AtomicBoolean staleTableReported = new AtomicBoolean();
+
+    public OptimalPriceCalculationEngine() {
+        this((GroupingTable) null, SearchListener.NONE);
+    }
+
+    @Autowired
+    public OptimalPriceCalculationEngine(GroupingTableProperties properties, SearchListener searchListener) {
+        this(openGroupingTable(properties), searchListener);
+    }
+
+    public OptimalPriceCalculationEngine(GroupingTable groupingTable, SearchListener searchListener) {
+        this.groupingTable = groupingTable;
+        this.searchListener = searchListener;
+    }
+
+    private static GroupingTable openGroupingTable(GroupingTableProperties properties) {
+        var path = properties.path();
+        if (path == null) {
+            return null;
+        }
+        if (!Files.isReadable(path)) {
+            log.warn("Grouping table {} not found, all carts are solved live", path);
+            return null;
+        }
+        try {
+            var groupingTable = GroupingTable.open(path);
+            log.info("Mapped grouping table {} for up to {} titles x {} copies",
+                    path, groupingTable.maxTitles(), groupingTable.maxCopies());
+            return groupingTable;
+        } catch (IOException e) {
+            log.warn("Ignoring grouping table {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public PriceCalculationEngine withSearchListener(SearchListener searchListener) {
+        return new OptimalPriceCalculationEngine(groupingTable, searchListener);
+    }
+
+    @Override
+    public String name() {
+        return "optimal";
+    }
+
+    @Override
+    public BigDecimal calculatePrice(List<CartLine> cartLines, DiscountTiers discountTiers) {
+        return calculatePrice(cartLines, discountTiers, null, SearchBudget.UNLIMITED);
+    }
+
+    /**
+     * Equal-price carts are cheap to solve from scratch, only the search for mixed prices uses the memo.
+     *
+     * @param memo intermediate results of earlier calls, {@code null} to keep them for this call only
+     */
+    @Override
+    public BigDecimal calculatePrice(List<CartLine> cartLines, DiscountTiers discountTiers, SolverMemo memo) {
+        return calculatePrice(cartLines, discountTiers, memo, SearchBudget.UNLIMITED);
+    }
+
+    @Override
+    public BigDecimal calculatePrice(
+            List<CartLine> cartLines, DiscountTiers discountTiers, SolverMemo memo, SearchBudget budget
+    ) {
+        if (cartLines.isEmpty()) {
+            return BigDecimal.ZERO;
+        }
+
+        var unitPriceCents = cartLines.get(0).priceCents();
+        var quantities = cartLines.stream().mapToInt(CartLine::quantity).toArray();
+        if (cartLines.stream().allMatch(l -> l.priceCents() == unitPriceCents)) {
+            return PriceCalculationEngine.toPrice(unitPriceCents * cheapestGrouping(quantities, discountTiers));
+        }
+        var search = new MemoizedSearch(cartLines, discountTiers, memo, budget);
+        var price = search.cheapestPrice(quantities);
+        searchListener.searched(name(), search.setsGenerated);
+        return PriceCalculationEngine.toPrice(price);
+    }
+
+    @Override
+    public long estimatedCost(List<CartLine> cartLines) {
+        var unitPriceCents = cartLines.isEmpty() ? 0 : cartLines.get(0).priceCents();
+        if (cartLines.stream().allMatch(l -> l.priceCents() == unitPriceCents)) {
+            return SearchCost.groupingSolver(cartLines);
+        }
+        return SearchCost.memoizedSearch(cartLines);
+    }
+
+    private long cheapestGrouping(int[] quantities, DiscountTiers discountTiers) {
+        if (groupingTable != null && groupingTable.covers(quantities)) {
+            if (groupingTable.matches(discountTiers)) {
+                return groupingTable.cheapestGrouping(quantities, discountTiers);
+            }
+            if (staleTableReported.compareAndSet(false, true)) {
+                log.warn("Grouping table was computed for other discount tiers than {}, ignoring it", discountTiers.factors());
+            }
+        }
+        return GroupingSolver.cheapestGrouping(quantities, discountTiers);
+    }
+
+    private static final class MemoizedSearch {
+
+        // checking the clock for every set would cost more than generating it
+        private static final int BUDGET_CHECK_MASK = (1 << 12) - 1;
+        // 64 MB, larger searches keep the partial carts they visit in a map
+        private static final long MAX_TABLE_PARTIAL_CARTS = 1 << 23;
+        // about 40 MB of map entries, searches visiting more are given up rather than running out of memory
+        private static final int MAX_MAP_PARTIAL_CARTS = 1 << 19;
+        private static final long UNKNOWN = -1;
+
+        private final List<CartLine> cartLines;
+        private final DiscountTiers discountTiers;
+        private final SolverMemo memo;
+        private final SearchBudget budget;
+        // partial carts of this search are numbered by their copies left in a mixed radix, the shared memo may start
+        // over while searching
+        private final long[] radixes;
+        private final long[] cheapestPricesTable;
+        private final Map<Long, Long> cheapestPrices = new HashMap<>();
+        private long setsGenerated;
+
+        private MemoizedSearch(List<CartLine> cartLines, DiscountTiers discountTiers, SolverMemo memo, SearchBudget budget) {
+            this.cartLines = cartLines;
+            this.discountTiers = discountTiers;
+            this.memo = memo;
+            this.budget = budget;
+            this.radixes = new long[cartLines.size()];
+            var partialCarts = 1L;
+            for (int i = 0; i < radixes.length; i++) {
+                radixes[i] = partialCarts;
+                try {
+                    partialCarts = Math.multiplyExact(partialCarts, cartLines.get(i).quantity() + 1L);
+                } catch (ArithmeticException e) {
+                    throw new PricingBudgetExceededException("Cart has too many partial carts to search");
+                }
+            }
+            if (partialCarts <= MAX_TABLE_PARTIAL_CARTS) {
+                cheapestPricesTable = new long[(int) partialCarts];
+                Arrays.fill(cheapestPricesTable, UNKNOWN);
+            } else {
+                cheapestPricesTable = null;
+            }
+            if (memo != null) {
+                memo.useDiscountTiers(discountTiers);
+            }
+        }
+
+        private long cheapestPrice(int[] quantities) {
+            var partialCart = 0L;
+            for (int i = 0; i < quantities.length; i++) {
+                partialCart += quantities[i] * radixes[i];
+            }
+            return cheapestPrice(quantities, partialCart);
+        }
+
+        /**
+         * @param quantitiesLeft copies left per cart line, changed while searching but restored before returning
+         * @param partialCart    {@code quantitiesLeft} in the mixed radix of the cart
+         */
+        private long cheapestPrice(int[] quantitiesLeft, long partialCart) {
+            if (partialCart == 0) {
+                return 0;
+            }
+            var searched = searched(partialCart);
+            if (searched != UNKNOWN) {
+                return searched;
+            }
+            var state = memo == null ? null : SolverMemo.State.of(cartLines, quantitiesLeft);
+            var known = state == null ? null : memo.get(state);
+            if (known != null) {
+                remember(partialCart, known);
+                return known;
+            }
+
+            var titlesLeft = 0;
+            for (int quantity : quantitiesLeft) {
+                if (quantity > 0) {
+                    titlesLeft++;
+                }
+            }
+            var titles = new int[titlesLeft];
+            for (int i = 0, j = 0; j < titlesLeft; i++) {
+                if (quantitiesLeft[i] > 0) {
+                    titles[j++] = i;
+                }
+            }
+            // every grouping has a set holding the first title left, so only those sets need to be tried here
+            var first = titles[0];
+            quantitiesLeft[first]--;
+            var cheapest = cheapestWithSet(quantitiesLeft, partialCart - radixes[first], titles, 1, 1,
+                    cartLines.get(first).priceCents());
+            quantitiesLeft[first]++;
+
+            remember(partialCart, cheapest);
+            if (state != null) {
+                memo.put(state, cheapest);
+            }
+            return cheapest;
+        }
+
+        private long searched(long partialCart) {
+            if (cheapestPricesTable != null) {
+                return cheapestPricesTable[(int) partialCart];
+            }
+            return cheapestPrices.getOrDefault(partialCart, UNKNOWN);
+        }
+
+        private void remember(long partialCart, long cheapestPrice) {
+            if (cheapestPricesTable != null) {
+                cheapestPricesTable[(int) partialCart] = cheapestPrice;
+            } else if (cheapestPrices.size() < MAX_MAP_PARTIAL_CARTS) {
+                cheapestPrices.put(partialCart, cheapestPrice);
+            } else {
+                throw new PricingBudgetExceededException("Cart has too many partial carts to search");
+            }
+        }
+
+        /**
+         * Cheapest price of the set taken from {@code quantitiesLeft} so far, completed by any of the titles from
+         * {@code titles[from]} on, and the copies left after it. Sets larger than the largest discounted one are
+         * never tried, splitting them costs the same.
+         */
+        private long cheapestWithSet(
+                int[] quantitiesLeft, long partialCart, int[] titles, int from, int setSize, long setPriceCents
+        ) {
+            if ((++setsGenerated & BUDGET_CHECK_MASK) == 0) {
+                budget.check();
+            }
+            var cheapest = setPriceCents * discountTiers.basisPoints(setSize) + cheapestPrice(quantitiesLeft, partialCart);
+            if (setSize < discountTiers.largestDiscountedSetSize()) {
+                for (int i = from; i < titles.length; i++) {
+                    var title = titles[i];
+                    quantitiesLeft[title]--;
+                    var price = cheapestWithSet(quantitiesLeft, partialCart - radixes[title], titles, i + 1, setSize + 1,
+                            setPriceCents + cartLines.get(title).priceCents());
+                    quantitiesLeft[title]++;
+                    cheapest = Math.min(cheapest, price);
+                }
+            }
+            return cheapest;
+        }
+    }
+}
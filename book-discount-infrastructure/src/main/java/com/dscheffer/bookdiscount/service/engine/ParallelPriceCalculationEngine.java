@@ -0,0 +1,273 @@
+package com.dscheffer.bookdiscount.service.engine;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Engine for wholesale carts that splits the search of the {@link OptimalPriceCalculationEngine} for mixed-price
+ * carts across a {@link ForkJoinPool}. It explores the same groupings, so its results are identical.
+ * <p>
+ * A branch is cut as soon as its price so far plus a lower bound for the remaining copies reaches the cheapest
+ * complete grouping found by any worker, which is shared through an {@link AtomicLong}. A branch is also cut when
+ * another one reached the same partial cart for no more money. Subtrees are forked while the pool runs out of
+ * queued work and searched depth first otherwise.
+ * <p>
+ * Carts whose titles all share one unit price are solved by the {@link GroupingSolver}.
+ */
+@Component
+@ConditionalOnProperty(name = "book-discount.pricing.engine", havingValue = "parallel")
+public class ParallelPriceCalculationEngine implements PriceCalculationEngine {
+
+    // partial carts remembered per search, beyond that branches are only cut by the bound
+    private static final int MAX_VISITED_PARTIAL_CARTS = 1 << 20;
+    private static final int SURPLUS_TASKS = 2;
+
+    private final ForkJoinPool pool;
+    private final SearchListener searchListener;
+
+    public ParallelPriceCalculationEngine(int parallelism) {
+        this(parallelism, SearchListener.NONE);
+    }
+
+    @Autowired
+    public ParallelPriceCalculationEngine(ParallelSearchProperties properties, SearchListener searchListener) {
+        this(properties.effectiveParallelism(), searchListener);
+    }
+
+    private ParallelPriceCalculationEngine(int parallelism, SearchListener searchListener) {
+        this(new ForkJoinPool(parallelism), searchListener);
+    }
+
+    private ParallelPriceCalculationEngine(ForkJoinPool pool, SearchListener searchListener) {
+        this.pool = pool;
+        this.searchListener = searchListener;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * The engine returned shares the pool, which is shut down with this one.
+     */
+    @Override
+    public PriceCalculationEngine withSearchListener(SearchListener searchListener) {
+        return new ParallelPriceCalculationEngine(pool, searchListener);
+    }
+
+    @Override
+    public String name() {
+        return "parallel";
+    }
+
+    @Override
+    public BigDecimal calculatePrice(List<CartLine> cartLines, DiscountTiers discountTiers) {
+        return calculatePrice(cartLines, discountTiers, null, SearchBudget.UNLIMITED);
+    }
+
+    /**
+     * The partial carts of one search are only shared between its workers, {@code memo} is not used.
+     */
+    @Override
+    public BigDecimal calculatePrice(
+            List<CartLine> cartLines, DiscountTiers discountTiers, SolverMemo memo, SearchBudget budget
+    ) {
+        if (cartLines.isEmpty()) {
+            return BigDecimal.ZERO;
+        }
+
+        var unitPriceCents = cartLines.get(0).priceCents();
+        var quantities = cartLines.stream().mapToInt(CartLine::quantity).toArray();
+        if (cartLines.stream().allMatch(l -> l.priceCents() == unitPriceCents)) {
+            return PriceCalculationEngine.toPrice(unitPriceCents * GroupingSolver.cheapestGrouping(quantities, discountTiers));
+        }
+
+        var search = new BranchAndBound(cartLines, discountTiers, budget);
+        pool.invoke(search.new Branch(quantities, 0));
+        searchListener.searched(name(), search.setsGenerated.sum());
+        return PriceCalculationEngine.toPrice(search.cheapest.get());
+    }
+
+    @Override
+    public long estimatedCost(List<CartLine> cartLines) {
+        var unitPriceCents = cartLines.isEmpty() ? 0 : cartLines.get(0).priceCents();
+        if (cartLines.stream().allMatch(l -> l.priceCents() == unitPriceCents)) {
+            return SearchCost.groupingSolver(cartLines);
+        }
+        // the bound usually cuts most of the search, but not for every cart
+        return SearchCost.memoizedSearch(cartLines);
+    }
+
+    private static final class BranchAndBound {
+
+        private final List<CartLine> cartLines;
+        private final DiscountTiers discountTiers;
+        private final SearchBudget budget;
+        // cheapestBasisPoints[t]: lowest factor of any set that t titles can form
+        private final int[] cheapestBasisPoints;
+        private final AtomicLong cheapest;
+        private final ConcurrentHashMap<SolverMemo.State, Long> cheapestPartialCarts = new ConcurrentHashMap<>();
+        private final LongAdder setsGenerated = new LongAdder();
+
+        private BranchAndBound(List<CartLine> cartLines, DiscountTiers discountTiers, SearchBudget budget) {
+            this.cartLines = cartLines;
+            this.discountTiers = discountTiers;
+            this.budget = budget;
+            this.cheapestBasisPoints = new int[cartLines.size() + 1];
+            cheapestBasisPoints[0] = DiscountTiers.NO_DISCOUNT;
+            for (int titles = 1; titles <= cartLines.size(); titles++) {
+                cheapestBasisPoints[titles] = Math.min(cheapestBasisPoints[titles - 1], discountTiers.basisPoints(titles));
+            }
+            this.cheapest = new AtomicLong(greedyPrice(cartLines.stream().mapToInt(CartLine::quantity).toArray()));
+        }
+
+        /**
+         * Price of always taking the largest discounted set, the first bound to beat.
+         */
+        private long greedyPrice(int[] quantitiesLeft) {
+            var quantities = quantitiesLeft.clone();
+            var price = 0L;
+            var titlesLeft = titlesLeft(quantities);
+            while (titlesLeft > 0) {
+                var setSize = Math.min(titlesLeft, discountTiers.largestDiscountedSetSize());
+                price += takeSet(quantities, setSize) * discountTiers.basisPoints(setSize);
+                titlesLeft = titlesLeft(quantities);
+            }
+            return price;
+        }
+
+        private final class Branch extends RecursiveAction {
+
+            private final int[] quantitiesLeft;
+            private final long price;
+
+            private Branch(int[] quantitiesLeft, long price) {
+                this.quantitiesLeft = quantitiesLeft;
+                this.price = price;
+            }
+
+            @Override
+            protected void compute() {
+                var forked = new ArrayList<Branch>();
+                search(quantitiesLeft, price, forked);
+                for (int i = forked.size() - 1; i >= 0; i--) {
+                    forked.get(i).join();
+                }
+            }
+        }
+
+        private void search(int[] quantitiesLeft, long price, List<Branch> forked) {
+            budget.check();
+            var titlesLeft = titlesLeft(quantitiesLeft);
+            if (titlesLeft == 0) {
+                cheapest.accumulateAndGet(price, Math::min);
+                return;
+            }
+            if (price + remainingCents(quantitiesLeft) * cheapestBasisPoints[titlesLeft] >= cheapest.get()) {
+                return;
+            }
+            var state = SolverMemo.State.of(cartLines, quantitiesLeft);
+            var known = cheapestPartialCarts.get(state);
+            if (known != null && known <= price) {
+                return;
+            }
+            if (known != null || cheapestPartialCarts.size() < MAX_VISITED_PARTIAL_CARTS) {
+                cheapestPartialCarts.merge(state, price, Math::min);
+            }
+
+            // every grouping has a set holding the first title left, so only those sets need to be tried here
+            var titles = titlesWithCopiesLeft(quantitiesLeft, titlesLeft);
+            var next = quantitiesLeft.clone();
+            next[titles[0]]--;
+            branch(next, titles, 1, 1, cartLines.get(titles[0]).priceCents(), price, forked);
+        }
+
+        /**
+         * Completes the set taken from {@code quantitiesLeft} so far by any of the titles from {@code titles[from]}
+         * on before searching with the set as it is, so large sets are tried first, they tend to find a cheap
+         * grouping early. Sets larger than the largest discounted one are never tried, splitting them costs the same.
+         */
+        private void branch(
+                int[] quantitiesLeft, int[] titles, int from, int setSize, long setPriceCents, long price, List<Branch> forked
+        ) {
+            if (setSize < discountTiers.largestDiscountedSetSize()) {
+                for (int i = from; i < titles.length; i++) {
+                    var title = titles[i];
+                    quantitiesLeft[title]--;
+                    branch(quantitiesLeft, titles, i + 1, setSize + 1, setPriceCents + cartLines.get(title).priceCents(),
+                            price, forked);
+                    quantitiesLeft[title]++;
+                }
+            }
+
+            var next = quantitiesLeft.clone();
+            var nextPrice = price + setPriceCents * discountTiers.basisPoints(setSize);
+            setsGenerated.increment();
+            if (ForkJoinTask.getSurplusQueuedTaskCount() < SURPLUS_TASKS) {
+                var branch = new Branch(next, nextPrice);
+                branch.fork();
+                forked.add(branch);
+            } else {
+                search(next, nextPrice, forked);
+            }
+        }
+
+        /**
+         * Takes a set of the first titles that still have copies left.
+         *
+         * @return the undiscounted price of the set in cents
+         */
+        private long takeSet(int[] quantities, int setSize) {
+            var setPriceCents = 0L;
+            for (int i = 0, taken = 0; taken < setSize; i++) {
+                if (quantities[i] > 0) {
+                    quantities[i]--;
+                    taken++;
+                    setPriceCents += cartLines.get(i).priceCents();
+                }
+            }
+            return setPriceCents;
+        }
+
+        private long remainingCents(int[] quantities) {
+            var cents = 0L;
+            for (int i = 0; i < quantities.length; i++) {
+                cents += quantities[i] * cartLines.get(i).priceCents();
+            }
+            return cents;
+        }
+
+        private static int[] titlesWithCopiesLeft(int[] quantities, int titlesLeft) {
+            var titles = new int[titlesLeft];
+            for (int i = 0, j = 0; j < titlesLeft; i++) {
+                if (quantities[i] > 0) {
+                    titles[j++] = i;
+                }
+            }
+            return titles;
+        }
+
+        private static int titlesLeft(int[] quantities) {
+            var titles = 0;
+            for (int quantity : quantities) {
+                if (quantity > 0) {
+                    titles++;
+                }
+            }
+            return titles;
+        }
+    }
+}
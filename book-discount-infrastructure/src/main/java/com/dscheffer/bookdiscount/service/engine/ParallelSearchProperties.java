@@ -0,0 +1,15 @@
+package com.dscheffer.bookdiscount.service.engine;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param parallelism worker threads of the {@link ParallelPriceCalculationEngine}, 0 for one per core
+ */
+@ConfigurationProperties(prefix = "book-discount.pricing.parallel-search")
+public record ParallelSearchProperties(@DefaultValue("0") int parallelism) {
+
+    public int effectiveParallelism() {
+        return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+}
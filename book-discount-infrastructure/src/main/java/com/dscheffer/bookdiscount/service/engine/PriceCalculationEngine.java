@@ -0,0 +1,71 @@
+package com.dscheffer.bookdiscount.service.engine;
+
+import com.dscheffer.bookdiscount.service.PricingBudgetExceededException;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Finds the cheapest way to split a cart into discount sets of distinct titles.
+ */
+public interface PriceCalculationEngine {
+
+    /**
+     * Scale of engine results computed in cents times basis points.
+     */
+    int PRICE_SCALE = 6;
+
+    /**
+     * @return the value of {@code book-discount.pricing.engine} selecting this engine
+     */
+    String name();
+
+    /**
+     * @param cartLines     titles with a positive quantity, sorted by {@link CartLine#BY_QUANTITY_DESC}
+     * @param discountTiers discount factors to apply
+     * @return the unrounded price of the cheapest grouping
+     */
+    BigDecimal calculatePrice(List<CartLine> cartLines, DiscountTiers discountTiers);
+
+    /**
+     * Same as {@link #calculatePrice(List, DiscountTiers)}, reusing and extending the intermediate results that
+     * earlier calls for similar carts left in {@code memo}. Engines without reusable intermediate results ignore it.
+     *
+     * @param memo intermediate results of earlier calls, {@code null} if there are none to share
+     */
+    default BigDecimal calculatePrice(List<CartLine> cartLines, DiscountTiers discountTiers, SolverMemo memo) {
+        return calculatePrice(cartLines, discountTiers);
+    }
+
+    /**
+     * Same as {@link #calculatePrice(List, DiscountTiers, SolverMemo)}, checking {@code budget} while searching.
+     * Engines that never search for long ignore it.
+     *
+     * @throws PricingBudgetExceededException if the budget ran out before the cheapest grouping was found
+     */
+    default BigDecimal calculatePrice(
+            List<CartLine> cartLines, DiscountTiers discountTiers, SolverMemo memo, SearchBudget budget
+    ) {
+        return calculatePrice(cartLines, discountTiers, memo);
+    }
+
+    /**
+     * Rough number of steps the search for {@code cartLines} takes, to tell expensive carts from cheap ones before
+     * searching.
+     *
+     * @param cartLines titles with a positive quantity, sorted by {@link CartLine#BY_QUANTITY_DESC}
+     */
+    long estimatedCost(List<CartLine> cartLines);
+
+    /**
+     * @return an engine searching like this one and sharing its resources that reports to {@code searchListener}
+     * instead, engines that report nothing return themselves
+     */
+    default PriceCalculationEngine withSearchListener(SearchListener searchListener) {
+        return this;
+    }
+
+    static BigDecimal toPrice(long centBasisPoints) {
+        return BigDecimal.valueOf(centBasisPoints, PRICE_SCALE);
+    }
+}
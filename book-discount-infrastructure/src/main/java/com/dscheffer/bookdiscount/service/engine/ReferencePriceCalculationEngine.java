@@ -0,0 +1,167 @@
+package com.dscheffer.bookdiscount.service.engine;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The original exhaustive search: enumerates every ordered composition of the total number of books and fills the
+ * discount sets greedily. Exponential in the cart size, kept to cross-check the other engines.
+ * <p>
+ * Greedy filling only tries sets of the first titles with copies left, so this engine finds the cheapest grouping of
+ * carts with up to five titles at one unit price and up to four titles at mixed prices. Beyond that the other engines
+ * may find cheaper groupings, e.g. 85.60 instead of 89.20 for six titles at 8.00 with 3, 3, 2, 2, 2 and 2 copies.
+ */
+@Component
+@ConditionalOnProperty(name = "book-discount.pricing.engine", havingValue = "reference")
+public class ReferencePriceCalculationEngine implements PriceCalculationEngine {
+
+    private final SearchListener searchListener;
+
+    public ReferencePriceCalculationEngine() {
+        this(SearchListener.NONE);
+    }
+
+    @Autowired
+    public ReferencePriceCalculationEngine(SearchListener searchListener) {
+        this.searchListener = searchListener;
+    }
+
+    @Override
+    public PriceCalculationEngine withSearchListener(SearchListener searchListener) {
+        return new ReferencePriceCalculationEngine(searchListener);
+    }
+
+    @Override
+    public String name() {
+        return "reference";
+    }
+
+    @Override
+    public BigDecimal calculatePrice(List<CartLine> cartLines, DiscountTiers discountTiers) {
+        return calculatePrice(cartLines, discountTiers, null, SearchBudget.UNLIMITED);
+    }
+
+    /**
+     * Has no intermediate results to reuse, {@code memo} is not used.
+     */
+    @Override
+    public BigDecimal calculatePrice(
+            List<CartLine> cartLines, DiscountTiers discountTiers, SolverMemo memo, SearchBudget budget
+    ) {
+        var bookQuantities = cartLines.stream()
+                .collect(Collectors.toMap(CartLine::bookId, CartLine::quantity));
+        var totalNumberOfBooks = bookQuantities.values().stream().reduce(0, Integer::sum);
+        var possibleCompositions = combinationSum(IntStream.range(1, cartLines.size() + 1).boxed().toList(), totalNumberOfBooks, budget);
+
+        var finalPrice = BigDecimal.ZERO;
+        var feasibleCompositions = 0L;
+        for (List<Integer> composition : possibleCompositions) {
+            budget.check();
+            var discountSets = createDiscountSets(bookQuantities, cartLines, composition);
+            if (discountSets.isEmpty()) {
+                continue;
+            }
+            feasibleCompositions++;
+            var price = calculateDiscountSetsPrice(discountSets, discountTiers);
+            if (priceIsSmallerOrFinalPriceIsNotInitialized(finalPrice, price)) {
+                finalPrice = price;
+            }
+        }
+        searchListener.searched(name(), possibleCompositions.size(), feasibleCompositions);
+
+        return finalPrice;
+    }
+
+    @Override
+    public long estimatedCost(List<CartLine> cartLines) {
+        return SearchCost.referenceSearch(cartLines);
+    }
+
+    private static boolean priceIsSmallerOrFinalPriceIsNotInitialized(
+            BigDecimal finalPrice, BigDecimal price
+    ) {
+        return finalPrice.compareTo(BigDecimal.ZERO) == 0 || price.compareTo(finalPrice) < 0;
+    }
+
+    private List<List<Integer>> combinationSum(List<Integer> candidates, Integer target, SearchBudget budget) {
+        var result = new ArrayList<List<Integer>>();
+        combinationSumHelper(candidates, 0, new ArrayList<>(), target, result, budget);
+        return result;
+    }
+
+    private void combinationSumHelper(
+            List<Integer> candidates,
+            Integer currentSum,
+            List<Integer> currentCombination,
+            Integer target,
+            List<List<Integer>> result,
+            SearchBudget budget
+    ) {
+        budget.check();
+        if (currentSum.equals(target)) {
+            result.add(currentCombination);
+            return;
+        }
+
+        if (currentSum > target) {
+            return;
+        }
+
+        for (int i = 0; i < candidates.size(); i++) {
+            var currentCombinationCopy = new ArrayList<>(currentCombination);
+            currentCombinationCopy.add(candidates.get(i));
+            combinationSumHelper(candidates, currentSum + candidates.get(i), currentCombinationCopy, target, result, budget);
+        }
+    }
+
+    private List<Set<CartLine>> createDiscountSets(
+            Map<Long, Integer> bookQuantities,
+            List<CartLine> cartLines,
+            List<Integer> maximumDiscountSetSizes
+    ) {
+        var bookQuantitiesCopy = new HashMap<>(bookQuantities);
+        var discountSets = new ArrayList<Set<CartLine>>();
+        for(Integer maxDiscountSetSize : maximumDiscountSetSizes) {
+            var discountSet = new HashSet<CartLine>();
+            for (CartLine cartLine : cartLines) {
+                var quantity = bookQuantitiesCopy.get(cartLine.bookId());
+                if (quantity > 0) {
+                    discountSet.add(cartLine);
+                    bookQuantitiesCopy.put(cartLine.bookId(), quantity - 1);
+                }
+                if (discountSet.size() == maxDiscountSetSize) {
+                    break;
+                }
+            }
+            discountSets.add(discountSet);
+        }
+
+        // current discount set combination is not possible with provided quantities
+        if (hasQuantitiesLeft(bookQuantitiesCopy)) {
+            return List.of();
+        }
+
+        return discountSets;
+    }
+
+    private static boolean hasQuantitiesLeft(HashMap<Long, Integer> bookQuantitiesCopy) {
+        return bookQuantitiesCopy.entrySet().stream()
+                .anyMatch(e -> e.getValue() > 0);
+    }
+
+    private BigDecimal calculateDiscountSetsPrice(List<Set<CartLine>> discountSets, DiscountTiers discountTiers) {
+        return discountSets.stream()
+                .map(s -> s.stream()
+                    .map(CartLine::price)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add)
+                    .multiply(discountTiers.discountFactor(s.size()))
+                ).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.dscheffer.bookdiscount.service.engine;
+
+import com.dscheffer.bookdiscount.service.PricingBudgetExceededException;
+
+import java.time.Duration;
+
+/**
+ * Deadline of a search. Engines call {@link #check()} regularly and thereby give up once it has passed.
+ */
+public final class SearchBudget {
+
+    public static final SearchBudget UNLIMITED = new SearchBudget(Duration.ZERO, 0);
+
+    private final Duration budget;
+    private final long deadlineNanos;
+
+    private SearchBudget(Duration budget, long deadlineNanos) {
+        this.budget = budget;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * @param budget time the search may take from now on, zero or negative for no limit
+     */
+    public static SearchBudget startingNow(Duration budget) {
+        if (budget.isZero() || budget.isNegative()) {
+            return UNLIMITED;
+        }
+        return new SearchBudget(budget, System.nanoTime() + budget.toNanos());
+    }
+
+    /**
+     * @throws PricingBudgetExceededException if the deadline has passed
+     */
+    public void check() {
+        if (this != UNLIMITED && System.nanoTime() - deadlineNanos > 0) {
+            throw new PricingBudgetExceededException("Cart could not be priced within " + budget.toMillis() + " ms");
+        }
+    }
+}
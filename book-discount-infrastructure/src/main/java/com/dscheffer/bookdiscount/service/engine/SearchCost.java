@@ -0,0 +1,78 @@
+package com.dscheffer.bookdiscount.service.engine;
+
+import java.util.List;
+
+/**
+ * Upper bounds of the number of steps the engines' searches take for a cart, saturating at {@link Long#MAX_VALUE}.
+ */
+final class SearchCost {
+
+    private SearchCost() {
+    }
+
+    /**
+     * The grouping solver fills a table per set size over the number of sets and the copies placed so far.
+     */
+    static long groupingSolver(List<CartLine> cartLines) {
+        var copies = totalCopies(cartLines);
+        return multiply(multiply(cartLines.size(), copies), copies);
+    }
+
+    /**
+     * The memoized search visits every partial cart at most once and generates the sets holding its first title,
+     * at most one per subset of the other titles.
+     */
+    static long memoizedSearch(List<CartLine> cartLines) {
+        var partialCarts = 1L;
+        for (var cartLine : cartLines) {
+            partialCarts = multiply(partialCarts, cartLine.quantity() + 1L);
+        }
+        return multiply(partialCarts, subsets(cartLines.size() - 1));
+    }
+
+    /**
+     * The reference engine generates every ordered composition of the number of copies into parts no larger than the
+     * number of titles, and fills discount sets with every copy for each of them.
+     */
+    static long referenceSearch(List<CartLine> cartLines) {
+        return multiply(compositions(cartLines), totalCopies(cartLines));
+    }
+
+    static long compositions(List<CartLine> cartLines) {
+        var copies = totalCopies(cartLines);
+        var parts = cartLines.size();
+        if (parts <= 1) {
+            return 1;
+        }
+        // the counts grow at least like the Fibonacci numbers, so this saturates after a few dozen copies
+        var compositions = new long[(int) Math.min(copies, 100) + 1];
+        compositions[0] = 1;
+        for (int n = 1; n <= copies; n++) {
+            if (n == compositions.length) {
+                return Long.MAX_VALUE;
+            }
+            for (int part = 1; part <= Math.min(parts, n); part++) {
+                compositions[n] = add(compositions[n], compositions[n - part]);
+            }
+        }
+        return compositions[(int) copies];
+    }
+
+    private static long subsets(int titles) {
+        return titles < Long.SIZE - 1 ? 1L << Math.max(titles, 0) : Long.MAX_VALUE;
+    }
+
+    private static long totalCopies(List<CartLine> cartLines) {
+        return cartLines.stream().mapToLong(CartLine::quantity).sum();
+    }
+
+    private static long multiply(long a, long b) {
+        var high = Math.multiplyHigh(a, b);
+        return high != 0 || a * b < 0 ? Long.MAX_VALUE : a * b;
+    }
+
+    private static long add(long a, long b) {
+        var sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+}
@@ -0,0 +1,28 @@
+package com.dscheffer.bookdiscount.service.engine;
+
+/**
+ * Told how much work an engine did for a cart, so it can be reported without tying the engines to a metrics
+ * library.
+ */
+public interface SearchListener {
+
+    SearchListener NONE = (engine, generated, feasible) -> {
+    };
+
+    /**
+     * @param engine    short name of the engine
+     * @param generated candidate groupings the search generated
+     * @param feasible  candidates that could actually be filled with the cart's copies
+     */
+    void searched(String engine, long generated, long feasible);
+
+    /**
+     * For engines that only ever generate candidates which can be filled, so there is no feasibility to report.
+     *
+     * @param engine    short name of the engine
+     * @param generated candidate groupings the search generated
+     */
+    default void searched(String engine, long generated) {
+        searched(engine, generated, generated);
+    }
+}
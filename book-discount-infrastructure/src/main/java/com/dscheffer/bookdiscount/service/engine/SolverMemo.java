@@ -0,0 +1,116 @@
+package com.dscheffer.bookdiscount.service.engine;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cheapest prices of partial carts found by an engine, kept between calls so that pricing a cart that differs from
+ * an earlier one by a few copies only searches the new part. Partial carts are identified by the prices and
+ * quantities of their titles, not by book IDs or the order of the titles, so entries stay valid when titles are added,
+ * removed or repriced. Not thread safe.
+ */
+public final class SolverMemo {
+
+    // HashMap node, State, array header and boxed Long on a 64 bit JVM with compressed oops
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final int maxEntries;
+    private final Map<State, Long> cheapestPrices = new HashMap<>();
+    private DiscountTiers discountTiers;
+    private long estimatedBytes;
+
+    /**
+     * @param maxEntries number of entries after which the memo starts over to bound its memory use
+     */
+    public SolverMemo(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public int size() {
+        return cheapestPrices.size();
+    }
+
+    /**
+     * @return rough number of heap bytes held by the entries
+     */
+    public long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * Drops all entries if they were computed for other discount tiers.
+     */
+    void useDiscountTiers(DiscountTiers discountTiers) {
+        if (this.discountTiers != null && this.discountTiers.fingerprint() != discountTiers.fingerprint()) {
+            clear();
+        }
+        this.discountTiers = discountTiers;
+    }
+
+    Long get(State state) {
+        return cheapestPrices.get(state);
+    }
+
+    void put(State state, long cheapestPrice) {
+        if (cheapestPrices.size() >= maxEntries) {
+            clear();
+        }
+        if (cheapestPrices.put(state, cheapestPrice) == null) {
+            estimatedBytes += ENTRY_OVERHEAD_BYTES + (long) state.lines().length * Long.BYTES;
+        }
+    }
+
+    private void clear() {
+        cheapestPrices.clear();
+        estimatedBytes = 0;
+    }
+
+    /**
+     * Price and quantity of every title with copies left, most copies first and ties by the higher price, so that
+     * partial carts holding the same titles in another order share one state.
+     */
+    record State(long[] lines) {
+
+        static State of(List<CartLine> cartLines, int[] quantitiesLeft) {
+            var titlesLeft = 0;
+            for (int quantity : quantitiesLeft) {
+                if (quantity > 0) {
+                    titlesLeft++;
+                }
+            }
+            var lines = new long[titlesLeft * 2];
+            for (int i = 0, j = 0; i < quantitiesLeft.length; i++) {
+                if (quantitiesLeft[i] > 0) {
+                    lines[j++] = cartLines.get(i).priceCents();
+                    lines[j++] = quantitiesLeft[i];
+                }
+            }
+            // insertion sort of the (price, quantity) pairs, carts have few titles
+            for (int i = 2; i < lines.length; i += 2) {
+                var price = lines[i];
+                var quantity = lines[i + 1];
+                var j = i;
+                while (j > 0 && (lines[j - 1] < quantity || lines[j - 1] == quantity && lines[j - 2] < price)) {
+                    lines[j] = lines[j - 2];
+                    lines[j + 1] = lines[j - 1];
+                    j -= 2;
+                }
+                lines[j] = price;
+                lines[j + 1] = quantity;
+            }
+            return new State(lines);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof State other && Arrays.equals(lines, other.lines);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(lines);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.dscheffer.bookdiscount.service.metrics;
+
+import com.dscheffer.bookdiscount.service.cache.CartSignature;
+import com.dscheffer.bookdiscount.service.engine.SearchListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Meters of the pricing hot path:
+ * <ul>
+ *     <li>{@code bookdiscount.pricing.calculation}: time to price a cart that missed the cache with a percentile
+ *     histogram, tagged by the number of distinct titles and a bucket of the total number of copies</li>
+ *     <li>{@code bookdiscount.pricing.catalog.lookup}: time to resolve the cart's books in the catalog</li>
+ *     <li>{@code bookdiscount.pricing.candidates}: candidate groupings an engine generated and, for engines that
+ *     also generate candidates the cart cannot fill, how many of them were feasible</li>
+ *     <li>{@code bookdiscount.pricing.slow}: carts slower than the configured threshold; one of them per interval
+ *     is logged with its signature</li>
+ *     <li>{@code bookdiscount.pricing.admission}: expensive carts that were admitted or rejected because too many of
+ *     them were being priced</li>
+ *     <li>{@code bookdiscount.pricing.budget.exceeded}: carts whose search ran out of its time budget</li>
+ *     <li>{@code bookdiscount.pricing.requests}: single cart requests that were computed or coalesced with an identical
+ *     request already in flight</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class PricingMetrics implements SearchListener {
+
+    private static final int MAX_TITLES_TAG = 10;
+    private static final int[] COPY_BUCKET_LIMITS = {1, 5, 20, 100};
+    private static final String[] COPY_BUCKETS = {"1", "2-5", "6-20", "21-100", "101+"};
+
+    private final MeterRegistry meterRegistry;
+    private final long slowCartThresholdNanos;
+    private final long slowCartLogIntervalNanos;
+    private final Map<Integer, Timer> calculationTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> generatedCandidates = new ConcurrentHashMap<>();
+    private final Map<String, Counter> feasibleCandidates = new ConcurrentHashMap<>();
+    private final Timer catalogLookupTimer;
+    private final Counter slowCarts;
+    private final Counter admittedCarts;
+    private final Counter rejectedCarts;
+    private final Counter budgetExceededCarts;
+    private final Counter computedRequests;
+    private final Counter coalescedRequests;
+    private final AtomicLong nextSlowCartLog;
+
+    public PricingMetrics(MeterRegistry meterRegistry, PricingMetricsProperties properties) {
+        this.meterRegistry = meterRegistry;
+        this.slowCartThresholdNanos = properties.slowCartThreshold().toNanos();
+        this.slowCartLogIntervalNanos = properties.slowCartLogInterval().toNanos();
+        this.nextSlowCartLog = new AtomicLong(System.nanoTime());
+        this.catalogLookupTimer = Timer.builder("bookdiscount.pricing.catalog.lookup")
+                .description("Time to resolve the books of a cart in the catalog snapshot")
+                .register(meterRegistry);
+        this.slowCarts = Counter.builder("bookdiscount.pricing.slow")
+                .description("Carts whose calculation exceeded the slow cart threshold")
+                .register(meterRegistry);
+        this.admittedCarts = admissionCounter("admitted");
+        this.rejectedCarts = admissionCounter("rejected");
+        this.budgetExceededCarts = Counter.builder("bookdiscount.pricing.budget.exceeded")
+                .description("Carts whose search was given up after exceeding the time budget")
+                .register(meterRegistry);
+        this.computedRequests = requestCounter("computed");
+        this.coalescedRequests = requestCounter("coalesced");
+    }
+
+    /**
+     * @return metrics in a registry of their own that never count a cart as slow, for pricing that must not show up
+     * in the application's meters
+     */
+    public static PricingMetrics unregistered() {
+        return new PricingMetrics(
+                new SimpleMeterRegistry(), new PricingMetricsProperties(Duration.ofNanos(Long.MAX_VALUE), Duration.ZERO)
+        );
+    }
+
+    public void recordCatalogLookup(long nanos) {
+        catalogLookupTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordCalculation(CartSignature signature, long nanos) {
+        var titles = Math.min(signature.entries().size(), MAX_TITLES_TAG + 1);
+        var copyBucket = copyBucket(signature.entries().stream().mapToLong(CartSignature.Entry::quantity).sum());
+        calculationTimers.computeIfAbsent(titles * COPY_BUCKETS.length + copyBucket, key -> Timer.builder("bookdiscount.pricing.calculation")
+                        .description("Time to price a cart")
+                        .tag("titles", titles > MAX_TITLES_TAG ? MAX_TITLES_TAG + 1 + "+" : String.valueOf(titles))
+                        .tag("copies", COPY_BUCKETS[copyBucket])
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+
+        if (nanos > slowCartThresholdNanos) {
+            slowCarts.increment();
+            logSampled(signature, nanos);
+        }
+    }
+
+    public void recordAdmission(boolean admitted) {
+        (admitted ? admittedCarts : rejectedCarts).increment();
+    }
+
+    public void recordBudgetExceeded() {
+        budgetExceededCarts.increment();
+    }
+
+    public void recordCoalescing(boolean coalesced) {
+        (coalesced ? coalescedRequests : computedRequests).increment();
+    }
+
+    @Override
+    public void searched(String engine, long generated, long feasible) {
+        searched(engine, generated);
+        feasibleCandidates.computeIfAbsent(engine, e -> candidateCounter(e, "feasible")).increment(feasible);
+    }
+
+    @Override
+    public void searched(String engine, long generated) {
+        generatedCandidates.computeIfAbsent(engine, e -> candidateCounter(e, "generated")).increment(generated);
+    }
+
+    private Counter candidateCounter(String engine, String result) {
+        return Counter.builder("bookdiscount.pricing.candidates")
+                .description("Candidate groupings generated by the pricing engine")
+                .tag("engine", engine)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private Counter admissionCounter(String result) {
+        return Counter.builder("bookdiscount.pricing.admission")
+                .description("Expensive carts admitted to or rejected by the pricing admission control")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private Counter requestCounter(String result) {
+        return Counter.builder("bookdiscount.pricing.requests")
+                .description("Single cart pricing requests, computed or sharing the result of an identical one in flight")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private void logSampled(CartSignature signature, long nanos) {
+        var now = System.nanoTime();
+        var next = nextSlowCartLog.get();
+        if (now - next >= 0 && nextSlowCartLog.compareAndSet(next, now + slowCartLogIntervalNanos)) {
+            log.warn("Slow cart took {} ms: {} ({} slow carts so far)",
+                    Duration.ofNanos(nanos).toMillis(), signature, (long) slowCarts.count());
+        }
+    }
+
+    private static int copyBucket(long copies) {
+        var bucket = 0;
+        while (bucket < COPY_BUCKET_LIMITS.length && copies > COPY_BUCKET_LIMITS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+}
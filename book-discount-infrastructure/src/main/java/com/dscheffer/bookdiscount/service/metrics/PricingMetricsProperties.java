@@ -0,0 +1,17 @@
+package com.dscheffer.bookdiscount.service.metrics;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param slowCartThreshold  calculations taking longer than this count as slow
+ * @param slowCartLogInterval at most one slow cart is logged per interval, the others are only counted
+ */
+@ConfigurationProperties(prefix = "book-discount.pricing.metrics")
+public record PricingMetricsProperties(
+        @DefaultValue("100ms") Duration slowCartThreshold,
+        @DefaultValue("10s") Duration slowCartLogInterval
+) {
+}
@@ -0,0 +1,23 @@
+package com.dscheffer.bookdiscount.service.quote;
+
+import com.dscheffer.bookdiscount.dto.ShoppingCart;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * One price handed out, or the reason none could be calculated.
+ *
+ * @param cart           the priced cart, written in its canonical form of book IDs with their quantities in ascending
+ *                       ID order
+ * @param durationMicros time it took to calculate the price
+ */
+public record PriceQuote(
+        Instant quotedAt,
+        ShoppingCart cart,
+        BigDecimal price,
+        String error,
+        String engine,
+        long durationMicros
+) {
+}
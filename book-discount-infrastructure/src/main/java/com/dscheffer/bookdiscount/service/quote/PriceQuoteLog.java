@@ -0,0 +1,207 @@
+package com.dscheffer.bookdiscount.service.quote;
+
+import com.dscheffer.bookdiscount.dto.ShoppingCart;
+import com.dscheffer.bookdiscount.service.engine.PriceCalculationEngine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Audit trail of the prices handed out. Requests only put their quote into a bounded queue; a background writer
+ * inserts them into {@code price_quote} in JDBC batches. What happens when the queue is full is configured by
+ * {@link PriceQuoteLogProperties.Overflow}. Quotes still queued at shutdown are written before the data source is
+ * closed.
+ * <p>
+ * Meters: {@code bookdiscount.quotes.queue.depth}, {@code bookdiscount.quotes.written} and
+ * {@code bookdiscount.quotes.dropped} tagged with the reason, {@code overflow} or {@code error}.
+ */
+@Slf4j
+@Component
+public class PriceQuoteLog implements SmartLifecycle {
+
+    private static final String INSERT = "insert into price_quote "
+            + "(quoted_at, cart, price, error, engine, duration_micros) values (?, ?, ?, ?, ?, ?)";
+    private static final int MAX_CART_LENGTH = 2000;
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PriceQuoteLogProperties properties;
+    private final String engine;
+    private final BlockingQueue<PriceQuote> queue;
+    private final Counter written;
+    private final Counter droppedOnOverflow;
+    private final Counter droppedOnError;
+    private volatile boolean running;
+    private Thread writer;
+
+    public PriceQuoteLog(
+            JdbcTemplate jdbcTemplate,
+            PriceQuoteLogProperties properties,
+            PriceCalculationEngine priceCalculationEngine,
+            MeterRegistry meterRegistry
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.engine = priceCalculationEngine.name();
+        this.queue = new ArrayBlockingQueue<>(properties.queueCapacity());
+        Gauge.builder("bookdiscount.quotes.queue.depth", queue, BlockingQueue::size)
+                .description("Price quotes waiting to be written")
+                .register(meterRegistry);
+        this.written = Counter.builder("bookdiscount.quotes.written")
+                .description("Price quotes written to the database")
+                .register(meterRegistry);
+        this.droppedOnOverflow = droppedCounter(meterRegistry, "overflow");
+        this.droppedOnError = droppedCounter(meterRegistry, "error");
+    }
+
+    /**
+     * @return a log that discards every quote, for pricing that must not show up in {@code price_quote}
+     */
+    public static PriceQuoteLog disabled(PriceCalculationEngine priceCalculationEngine) {
+        var properties = new PriceQuoteLogProperties(
+                false, 1, 1, Duration.ZERO, PriceQuoteLogProperties.Overflow.DROP_NEWEST, Duration.ZERO
+        );
+        return new PriceQuoteLog(null, properties, priceCalculationEngine, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Queues a quote without waiting for it to be written.
+     *
+     * @param price the price or {@code null} if the cart could not be priced because of {@code error}
+     */
+    public void record(ShoppingCart cart, BigDecimal price, String error, long durationNanos) {
+        if (!properties.enabled()) {
+            return;
+        }
+        var quote = new PriceQuote(Instant.now(), cart, price, error, engine, TimeUnit.NANOSECONDS.toMicros(durationNanos));
+        var queued = switch (properties.overflow()) {
+            case DROP_NEWEST -> queue.offer(quote);
+            case DROP_OLDEST -> offerDroppingOldest(quote);
+            case BLOCK -> offerWaiting(quote);
+        };
+        if (!queued) {
+            droppedOnOverflow.increment();
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!properties.enabled()) {
+            return;
+        }
+        running = true;
+        writer = Thread.ofPlatform().name("price-quote-writer").daemon().start(this::writeQueued);
+    }
+
+    /**
+     * Waits until the writer has written every queued quote.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops after the web server, so that the quotes of requests finishing during a graceful shutdown are written.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private boolean offerDroppingOldest(PriceQuote quote) {
+        while (!queue.offer(quote)) {
+            if (queue.poll() != null) {
+                droppedOnOverflow.increment();
+            }
+        }
+        return true;
+    }
+
+    private boolean offerWaiting(PriceQuote quote) {
+        try {
+            return queue.offer(quote, properties.offerTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void writeQueued() {
+        var batch = new ArrayList<PriceQuote>(properties.batchSize());
+        while (running || !queue.isEmpty()) {
+            PriceQuote first;
+            try {
+                first = queue.poll(properties.flushInterval().toNanos(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                running = false;
+                continue;
+            }
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, properties.batchSize() - 1);
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<PriceQuote> batch) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT, batch, batch.size(), (statement, quote) -> {
+                statement.setTimestamp(1, Timestamp.from(quote.quotedAt()));
+                statement.setString(2, truncate(quote.cart().toString(), MAX_CART_LENGTH));
+                statement.setBigDecimal(3, quote.price());
+                statement.setString(4, truncate(quote.error(), MAX_ERROR_LENGTH));
+                statement.setString(5, quote.engine());
+                statement.setLong(6, quote.durationMicros());
+            });
+            written.increment(batch.size());
+        } catch (DataAccessException e) {
+            log.warn("Dropping {} price quotes that could not be written: {}", batch.size(), e.getMessage());
+            droppedOnError.increment(batch.size());
+        }
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+
+    private static Counter droppedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("bookdiscount.quotes.dropped")
+                .description("Price quotes that were not written")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
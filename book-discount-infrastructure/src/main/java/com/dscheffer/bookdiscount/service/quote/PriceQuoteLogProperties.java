@@ -0,0 +1,40 @@
+package com.dscheffer.bookdiscount.service.quote;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param enabled       whether quotes are written at all
+ * @param queueCapacity quotes waiting to be written at most
+ * @param batchSize     quotes written per JDBC batch at most
+ * @param flushInterval how long the writer waits for a quote before checking whether it should stop
+ * @param overflow      what happens to a quote when the queue is full
+ * @param offerTimeout  how long {@link Overflow#BLOCK} waits for space before the quote is dropped
+ */
+@ConfigurationProperties(prefix = "book-discount.quote-log")
+public record PriceQuoteLogProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10000") int queueCapacity,
+        @DefaultValue("500") int batchSize,
+        @DefaultValue("1s") Duration flushInterval,
+        @DefaultValue("DROP_NEWEST") Overflow overflow,
+        @DefaultValue("50ms") Duration offerTimeout
+) {
+
+    public enum Overflow {
+        /**
+         * Drop the quote that does not fit, the request is never slowed down.
+         */
+        DROP_NEWEST,
+        /**
+         * Drop the oldest waiting quote to make room.
+         */
+        DROP_OLDEST,
+        /**
+         * Make the request wait up to the offer timeout for space, then drop its quote.
+         */
+        BLOCK
+    }
+}
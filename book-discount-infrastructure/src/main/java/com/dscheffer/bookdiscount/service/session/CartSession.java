@@ -0,0 +1,48 @@
+package com.dscheffer.bookdiscount.service.session;
+
+import com.dscheffer.bookdiscount.dto.CartSessionState;
+import com.dscheffer.bookdiscount.service.engine.SolverMemo;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Mutable state of one cart session. Callers synchronize on the session.
+ */
+class CartSession {
+
+    // object header, fields and TreeMap
+    private static final int SESSION_OVERHEAD_BYTES = 160;
+    // TreeMap entry with boxed key and value
+    private static final int ITEM_BYTES = 72;
+
+    private final String id;
+    private final SolverMemo memo;
+    private Map<Long, Integer> bookQuantities = new TreeMap<>();
+    private BigDecimal price = BigDecimal.ZERO;
+
+    CartSession(String id, SolverMemo memo) {
+        this.id = id;
+        this.memo = memo;
+    }
+
+    SolverMemo memo() {
+        return memo;
+    }
+
+    Map<Long, Integer> bookQuantities() {
+        return bookQuantities;
+    }
+
+    void update(Map<Long, Integer> bookQuantities, BigDecimal price) {
+        this.bookQuantities = bookQuantities;
+        this.price = price;
+    }
+
+    CartSessionState state() {
+        var estimatedBytes = SESSION_OVERHEAD_BYTES + (long) bookQuantities.size() * ITEM_BYTES + memo.estimatedBytes();
+        return new CartSessionState(id, Collections.unmodifiableMap(bookQuantities), price, estimatedBytes);
+    }
+}
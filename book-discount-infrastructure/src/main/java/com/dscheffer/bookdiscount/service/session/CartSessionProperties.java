@@ -0,0 +1,19 @@
+package com.dscheffer.bookdiscount.service.session;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param maxSessions    sessions kept at most, the least recently used one is dropped beyond that
+ * @param ttl            time after the last change of a session until it expires
+ * @param maxMemoEntries intermediate results kept per session
+ */
+@ConfigurationProperties(prefix = "book-discount.cart-sessions")
+public record CartSessionProperties(
+        @DefaultValue("10000") int maxSessions,
+        @DefaultValue("30m") Duration ttl,
+        @DefaultValue("20000") int maxMemoEntries
+) {
+}
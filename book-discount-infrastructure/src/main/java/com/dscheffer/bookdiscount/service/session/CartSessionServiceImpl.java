@@ -0,0 +1,98 @@
+package com.dscheffer.bookdiscount.service.session;
+
+import com.dscheffer.bookdiscount.dto.CartSessionState;
+import com.dscheffer.bookdiscount.service.CartSessionService;
+import com.dscheffer.bookdiscount.service.PriceCalculatorServiceImpl;
+import com.dscheffer.bookdiscount.service.cache.LruCache;
+import com.dscheffer.bookdiscount.service.engine.SolverMemo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Keeps cart sessions in a bounded, expiring {@link LruCache}. Each session owns a {@link SolverMemo}, so repricing
+ * after a change only searches the partial carts that were not seen before.
+ */
+@Slf4j
+@Service
+public class CartSessionServiceImpl implements CartSessionService {
+
+    private final PriceCalculatorServiceImpl priceCalculatorService;
+    private final LruCache<String, CartSession> sessions;
+    private final int maxMemoEntries;
+
+    public CartSessionServiceImpl(PriceCalculatorServiceImpl priceCalculatorService, CartSessionProperties properties) {
+        this.priceCalculatorService = priceCalculatorService;
+        this.sessions = new LruCache<>(properties.maxSessions(), properties.ttl());
+        this.maxMemoEntries = properties.maxMemoEntries();
+    }
+
+    @Override
+    public CartSessionState create(Map<Long, Integer> bookQuantities) {
+        var session = new CartSession(UUID.randomUUID().toString(), new SolverMemo(maxMemoEntries));
+        var initialQuantities = new TreeMap<>(bookQuantities);
+        initialQuantities.values().removeIf(quantity -> quantity <= 0);
+        var state = reprice(session, initialQuantities);
+        sessions.put(state.id(), session);
+        return state;
+    }
+
+    @Override
+    public Optional<CartSessionState> get(String id) {
+        var session = sessions.getIfPresent(id);
+        if (session == null) {
+            return Optional.empty();
+        }
+        synchronized (session) {
+            return Optional.of(session.state());
+        }
+    }
+
+    @Override
+    public Optional<CartSessionState> changeQuantity(String id, long bookId, int quantity) {
+        var session = sessions.getIfPresent(id);
+        if (session == null) {
+            return Optional.empty();
+        }
+        synchronized (session) {
+            var bookQuantities = new TreeMap<>(session.bookQuantities());
+            var newQuantity = Math.max(0, addQuantity(bookQuantities.getOrDefault(bookId, 0), quantity));
+            if (newQuantity == 0) {
+                bookQuantities.remove(bookId);
+            } else {
+                bookQuantities.put(bookId, newQuantity);
+            }
+            var state = reprice(session, bookQuantities);
+            // a session deleted meanwhile stays deleted
+            return sessions.replace(id, session) ? Optional.of(state) : Optional.empty();
+        }
+    }
+
+    @Override
+    public boolean delete(String id) {
+        return sessions.remove(id) != null;
+    }
+
+    private static int addQuantity(int quantity, int change) {
+        try {
+            return Math.addExact(quantity, change);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Quantity is too large");
+        }
+    }
+
+    // prices before changing the session, so an unknown book leaves it untouched
+    private CartSessionState reprice(CartSession session, Map<Long, Integer> bookQuantities) {
+        synchronized (session) {
+            var price = priceCalculatorService.calculatePrice(bookQuantities, session.memo());
+            session.update(bookQuantities, price);
+            var state = session.state();
+            log.debug("Cart session {} now costs {} and holds about {} bytes", state.id(), state.price(), state.estimatedBytes());
+            return state;
+        }
+    }
+}
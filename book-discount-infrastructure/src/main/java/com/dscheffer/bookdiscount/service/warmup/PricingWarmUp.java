@@ -0,0 +1,127 @@
+package com.dscheffer.bookdiscount.service.warmup;
+
+import com.dscheffer.bookdiscount.dto.ShoppingCart;
+import com.dscheffer.bookdiscount.service.PriceCalculatorServiceImpl;
+import com.dscheffer.bookdiscount.service.catalog.BookCatalog;
+import com.dscheffer.bookdiscount.service.catalog.CatalogSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Runs a synthetic workload through the catalog load and the pricing hot path once the application has started, so
+ * the JIT has compiled them before real requests arrive. The warm-up runs on its own thread; until it finishes or its
+ * time limit runs out, {@link #report()} says it is not done and the readiness probe keeps traffic away.
+ * <p>
+ * The synthetic carts are built from the books in the catalog with a fixed seed and priced by an
+ * {@link PriceCalculatorServiceImpl#unrecorded() unrecorded} copy of the service, which runs the same code as requests
+ * to {@code /api/price/calculate}. It bypasses a price cache of its own, so every cart is searched by the engine even if
+ * an earlier one had the same signature, while requests arriving meanwhile keep using the shared cache. Neither quotes
+ * nor pricing meters are written for the synthetic carts.
+ * <p>
+ * Meter: {@code bookdiscount.warmup} with the duration of the warm-up, tagged with its result.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PricingWarmUp {
+
+    private static final long SEED = 42;
+    private static final int MAX_TITLES = 6;
+    private static final int MAX_COPIES = 4;
+    private static final int PROGRESS_INTERVAL = 100;
+
+    private final BookCatalog bookCatalog;
+    private final PriceCalculatorServiceImpl priceCalculatorService;
+    private final PricingWarmUpProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private volatile Report report = new Report(State.PENDING, 0, 0, Duration.ZERO);
+
+    public enum State {
+        PENDING, RUNNING, COMPLETED, TIMED_OUT, FAILED, DISABLED;
+
+        /**
+         * @return whether the application may receive traffic, a failed warm-up does not keep it from being ready
+         */
+        public boolean isFinished() {
+            return this != PENDING && this != RUNNING;
+        }
+    }
+
+    /**
+     * @param duration time spent so far or in total once finished
+     */
+    public record Report(State state, int catalogLoads, int cartsPriced, Duration duration) {
+    }
+
+    public Report report() {
+        return report;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.enabled()) {
+            report = new Report(State.DISABLED, 0, 0, Duration.ZERO);
+            return;
+        }
+        report = new Report(State.RUNNING, 0, 0, Duration.ZERO);
+        Thread.ofPlatform().name("pricing-warm-up").daemon().start(this::run);
+    }
+
+    void run() {
+        var start = System.nanoTime();
+        var deadline = start + properties.timeLimit().toNanos();
+        var catalogLoads = 0;
+        var cartsPriced = 0;
+        var state = State.COMPLETED;
+        try {
+            var unrecordedService = priceCalculatorService.unrecorded();
+            while (catalogLoads < properties.catalogLoads() && System.nanoTime() < deadline) {
+                bookCatalog.refresh();
+                report = new Report(State.RUNNING, ++catalogLoads, 0, Duration.ofNanos(System.nanoTime() - start));
+            }
+            var catalog = bookCatalog.snapshot();
+            var random = new Random(SEED);
+            while (catalog.size() > 0 && cartsPriced < properties.carts() && System.nanoTime() < deadline) {
+                unrecordedService.calculatePrice(syntheticCart(catalog, random));
+                if (++cartsPriced % PROGRESS_INTERVAL == 0) {
+                    report = new Report(State.RUNNING, catalogLoads, cartsPriced, Duration.ofNanos(System.nanoTime() - start));
+                }
+            }
+            if (catalogLoads < properties.catalogLoads() || catalog.size() > 0 && cartsPriced < properties.carts()) {
+                state = State.TIMED_OUT;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Warm-up failed after {} catalog loads and {} carts", catalogLoads, cartsPriced, e);
+            state = State.FAILED;
+        }
+        var duration = Duration.ofNanos(System.nanoTime() - start);
+        Timer.builder("bookdiscount.warmup")
+                .description("Time spent warming up the pricing hot path before reporting ready")
+                .tag("result", state.name().toLowerCase())
+                .register(meterRegistry)
+                .record(duration);
+        report = new Report(state, catalogLoads, cartsPriced, duration);
+        log.info("Warm-up {} in {} ms with {} catalog loads and {} carts",
+                state.name().toLowerCase(), duration.toMillis(), catalogLoads, cartsPriced);
+    }
+
+    private static ShoppingCart syntheticCart(CatalogSnapshot catalog, Random random) {
+        var titles = 1 + random.nextInt(Math.min(MAX_TITLES, catalog.size()));
+        var bookQuantities = new HashMap<Long, Integer>();
+        while (bookQuantities.size() < titles) {
+            bookQuantities.put(catalog.bookId(random.nextInt(catalog.size())), 1 + random.nextInt(MAX_COPIES));
+        }
+        return ShoppingCart.of(bookQuantities);
+    }
+}
@@ -0,0 +1,21 @@
+package com.dscheffer.bookdiscount.service.warmup;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param enabled      whether the warm-up runs after startup
+ * @param catalogLoads times the catalog is loaded from the database
+ * @param carts        synthetic carts priced
+ * @param timeLimit    time after which the warm-up is cut short and the application reports ready anyway
+ */
+@ConfigurationProperties(prefix = "book-discount.warm-up")
+public record PricingWarmUpProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("3") int catalogLoads,
+        @DefaultValue("2000") int carts,
+        @DefaultValue("60s") Duration timeLimit
+) {
+}
@@ -0,0 +1,106 @@
+package com.dscheffer.bookdiscount.service;
+
+import com.dscheffer.bookdiscount.dto.Book;
+import com.dscheffer.bookdiscount.dto.BookPage;
+import com.dscheffer.bookdiscount.repository.BookRepository;
+import com.dscheffer.bookdiscount.service.catalog.BookCatalog;
+import com.dscheffer.bookdiscount.service.catalog.CatalogImport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookServiceImplTest {
+
+    private static final List<Book> BOOKS = List.of(
+            new Book(2L, "Buch2", new BigDecimal("8.00"), null),
+            new Book(3L, "Buch3", new BigDecimal("9.50"), "Reihe A"),
+            new Book(5L, "Buch5", new BigDecimal("8.00"), "Reihe A"),
+            new Book(8L, "Buch8", new BigDecimal("12.99"), null)
+    );
+
+    @Mock
+    BookRepository bookRepositoryMock;
+
+    @Mock
+    CatalogImport catalogImportMock;
+
+    BookCatalog bookCatalog;
+
+    BookServiceImpl bookService;
+
+    @BeforeEach
+    void setup() {
+        bookCatalog = new BookCatalog(bookRepositoryMock);
+        bookService = new BookServiceImpl(bookCatalog, catalogImportMock);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("provideGetBooksData")
+    void testGetBooks(String displayName, long afterId, int limit, List<Long> expectedIds, Long expectedNextAfterId) {
+        when(bookRepositoryMock.findAllBooks()).thenReturn(BOOKS);
+        bookCatalog.refresh();
+
+        var page = bookService.getBooks(afterId, limit);
+
+        assertThat(page.books()).extracting(Book::id).containsExactlyElementsOf(expectedIds);
+        assertThat(page.nextAfterId()).isEqualTo(expectedNextAfterId);
+        assertThat(page.catalogFingerprint()).isEqualTo(bookService.getAllBooks().catalogFingerprint());
+    }
+
+    @Test
+    void testCatalogFingerprintOnlyChangesWithBooks() {
+        when(bookRepositoryMock.findAllBooks()).thenReturn(BOOKS);
+        bookCatalog.refresh();
+        var fingerprint = bookService.getAllBooks().catalogFingerprint();
+
+        bookCatalog.refresh();
+        var unchanged = bookService.getAllBooks().catalogFingerprint();
+        when(bookRepositoryMock.findAllBooks()).thenReturn(List.of(
+                BOOKS.get(0), BOOKS.get(1), BOOKS.get(2), new Book(8L, "Buch8", new BigDecimal("12.98"), null)
+        ));
+        bookCatalog.refresh();
+        var repriced = bookService.getAllBooks().catalogFingerprint();
+        when(bookRepositoryMock.findAllBooks()).thenReturn(List.of(
+                BOOKS.get(0), BOOKS.get(1), BOOKS.get(2), new Book(8L, "Buch8", new BigDecimal("12.99"), "Reihe A")
+        ));
+        bookCatalog.refresh();
+        var moved = bookService.getAllBooks().catalogFingerprint();
+
+        assertThat(unchanged).isEqualTo(fingerprint);
+        assertThat(List.of(fingerprint, repriced, moved)).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void testGetAllBooksReturnsWholeCatalogInOnePage() {
+        when(bookRepositoryMock.findAllBooks()).thenReturn(BOOKS);
+        bookCatalog.refresh();
+
+        assertThat(bookService.getAllBooks())
+                .extracting(BookPage::books, BookPage::nextAfterId)
+                .containsExactly(BOOKS, null);
+    }
+
+    private static Stream<Arguments> provideGetBooksData() {
+        return Stream.of(
+                Arguments.of("Erste Seite", Long.MIN_VALUE, 2, List.of(2L, 3L), 3L),
+                Arguments.of("Nach vorhandener ID", 2L, 2, List.of(3L, 5L), 5L),
+                Arguments.of("Nach gelöschter ID", 4L, 1, List.of(5L), 5L),
+                Arguments.of("Letzte Seite genau voll", 3L, 2, List.of(5L, 8L), null),
+                Arguments.of("Seite größer als Katalog", Long.MIN_VALUE, 10, List.of(2L, 3L, 5L, 8L), null),
+                Arguments.of("Nach letztem Buch", 8L, 10, List.of(), null)
+        );
+    }
+}
@@ -0,0 +1,132 @@
+package com.dscheffer.bookdiscount.service;
+
+import com.dscheffer.bookdiscount.dto.ShoppingCart;
+import com.dscheffer.bookdiscount.service.metrics.PricingMetrics;
+import com.dscheffer.bookdiscount.service.metrics.PricingMetricsProperties;
+import com.dscheffer.bookdiscount.service.quote.PriceQuoteLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CoalescingPriceCalculatorServiceTest {
+
+    private static final int WAITERS = 8;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    PriceCalculatorServiceImpl priceCalculatorServiceMock;
+
+    @Mock
+    PriceQuoteLog priceQuoteLogMock;
+
+    CoalescingPriceCalculatorService coalescingService;
+
+    CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setup() {
+        coalescingService = new CoalescingPriceCalculatorService(priceCalculatorServiceMock, new PricingMetrics(
+                meterRegistry, new PricingMetricsProperties(Duration.ofMillis(100), Duration.ofSeconds(10))
+        ), priceQuoteLogMock);
+    }
+
+    @Test
+    void testCalculatePriceSharesOneCalculationBetweenIdenticalCarts() throws Exception {
+        when(priceCalculatorServiceMock.calculatePrice(any(ShoppingCart.class))).thenAnswer(invocation -> {
+            release.await();
+            return new BigDecimal("23.20");
+        });
+
+        var results = submitWhileInFlight(i -> i % 2 == 0 ? Map.of(1L, 1, 2L, 2) : Map.of(2L, 2, 1L, 1));
+
+        for (var result : results) {
+            assertThat(result.get()).isEqualTo(new BigDecimal("23.20"));
+        }
+        verify(priceCalculatorServiceMock, times(1)).calculatePrice(any(ShoppingCart.class));
+        assertThat(requests("computed")).isEqualTo(1);
+        assertThat(requests("coalesced")).isEqualTo(WAITERS);
+        assertThat(coalescingService.inFlight()).isZero();
+    }
+
+    @Test
+    void testCalculatePricePropagatesFailureToEveryWaiter() throws Exception {
+        when(priceCalculatorServiceMock.calculatePrice(any(ShoppingCart.class))).thenAnswer(invocation -> {
+            release.await();
+            throw new IllegalArgumentException("Unknown ID used!");
+        });
+
+        var results = submitWhileInFlight(i -> Map.of(42L, 1));
+
+        for (var result : results) {
+            assertThatThrownBy(result::join)
+                    .isInstanceOf(CompletionException.class)
+                    .hasCauseInstanceOf(IllegalArgumentException.class)
+                    .hasRootCauseMessage("Unknown ID used!");
+        }
+        verify(priceCalculatorServiceMock, times(1)).calculatePrice(any(ShoppingCart.class));
+        assertThat(coalescingService.inFlight()).isZero();
+    }
+
+    @Test
+    void testCalculatePriceComputesAgainOnceCalculationIsDone() {
+        when(priceCalculatorServiceMock.calculatePrice(any(ShoppingCart.class))).thenReturn(new BigDecimal("8.00"));
+
+        coalescingService.calculatePrice(Map.of(1L, 1));
+        coalescingService.calculatePrice(Map.of(1L, 1));
+
+        verify(priceCalculatorServiceMock, times(2)).calculatePrice(any(ShoppingCart.class));
+        assertThat(requests("coalesced")).isZero();
+    }
+
+    /**
+     * Starts one calculation, waits until it is in flight, adds {@link #WAITERS} more requests and releases it once
+     * all of them are waiting.
+     */
+    private List<CompletableFuture<BigDecimal>> submitWhileInFlight(IntFunction<Map<Long, Integer>> carts) {
+        ExecutorService executor = Executors.newFixedThreadPool(WAITERS + 1);
+        try {
+            var results = new ArrayList<CompletableFuture<BigDecimal>>();
+            results.add(CompletableFuture.supplyAsync(() -> coalescingService.calculatePrice(carts.apply(0)), executor));
+            await().until(() -> coalescingService.inFlight() == 1);
+            for (int i = 1; i <= WAITERS; i++) {
+                var cart = carts.apply(i);
+                results.add(CompletableFuture.supplyAsync(() -> coalescingService.calculatePrice(cart), executor));
+            }
+            await().until(() -> requests("coalesced") == WAITERS);
+            release.countDown();
+            CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("bookdiscount.pricing.requests").tag("result", result).counter().count();
+    }
+}
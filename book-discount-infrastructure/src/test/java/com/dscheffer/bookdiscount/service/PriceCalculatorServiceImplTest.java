@@ -1,9 +1,29 @@
 package com.dscheffer.bookdiscount.service;
 
 
-import com.dscheffer.bookdiscount.entity.BookEntity;
+import com.dscheffer.bookdiscount.dto.Book;
+import com.dscheffer.bookdiscount.dto.CartAddition;
+import com.dscheffer.bookdiscount.dto.CartPrice;
+import com.dscheffer.bookdiscount.dto.ShoppingCart;
+import com.dscheffer.bookdiscount.entity.DiscountTierEntity;
 import com.dscheffer.bookdiscount.repository.BookRepository;
+import com.dscheffer.bookdiscount.repository.DiscountTierRepository;
+import com.dscheffer.bookdiscount.service.admission.PricingAdmission;
+import com.dscheffer.bookdiscount.service.admission.PricingAdmissionProperties;
+import com.dscheffer.bookdiscount.service.admission.PricingExecutor;
+import com.dscheffer.bookdiscount.service.cache.PriceCache;
+import com.dscheffer.bookdiscount.service.cache.PriceCacheProperties;
+import com.dscheffer.bookdiscount.service.catalog.BookCatalog;
+import com.dscheffer.bookdiscount.service.catalog.DiscountTierTable;
+import com.dscheffer.bookdiscount.service.engine.CartLine;
+import com.dscheffer.bookdiscount.service.engine.OptimalPriceCalculationEngine;
+import com.dscheffer.bookdiscount.service.engine.SolverMemo;
+import com.dscheffer.bookdiscount.service.metrics.PricingMetrics;
+import com.dscheffer.bookdiscount.service.metrics.PricingMetricsProperties;
+import com.dscheffer.bookdiscount.service.quote.PriceQuoteLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -12,11 +32,22 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,12 +55,44 @@ class PriceCalculatorServiceImplTest {
 
     PriceCalculatorServiceImpl priceCalculatorService;
 
+    PriceCache priceCache;
+
+    BookCatalog bookCatalog;
+
+    DiscountTierTable discountTierTable;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    PricingMetrics pricingMetrics = new PricingMetrics(
+            meterRegistry, new PricingMetricsProperties(Duration.ofMillis(100), Duration.ofSeconds(10))
+    );
+
     @Mock
     BookRepository bookRepositoryMock;
 
+    @Mock
+    PriceQuoteLog priceQuoteLogMock;
+
+    @Mock
+    DiscountTierRepository discountTierRepositoryMock;
+
     @BeforeEach
     void setup() {
-        priceCalculatorService = new PriceCalculatorServiceImpl(bookRepositoryMock);
+        priceCache = new PriceCache(new PriceCacheProperties(100, Duration.ofHours(1)));
+        bookCatalog = new BookCatalog(bookRepositoryMock);
+        when(discountTierRepositoryMock.findAll()).thenReturn(List.of(
+                new DiscountTierEntity(2, new BigDecimal("0.95")),
+                new DiscountTierEntity(3, new BigDecimal("0.90")),
+                new DiscountTierEntity(4, new BigDecimal("0.80")),
+                new DiscountTierEntity(5, new BigDecimal("0.75"))
+        ));
+        discountTierTable = new DiscountTierTable(discountTierRepositoryMock, priceCache);
+        discountTierTable.reload();
+        priceCalculatorService = new PriceCalculatorServiceImpl(
+                bookCatalog, discountTierTable, new OptimalPriceCalculationEngine(), priceCache, pricingMetrics,
+                new PricingAdmission(new PricingAdmissionProperties(1_000_000, 2, Duration.ZERO, Duration.ofSeconds(10), 0), pricingMetrics),
+                priceQuoteLogMock, new PricingExecutor(2)
+        );
     }
 
     @ParameterizedTest(name="{0}")
@@ -37,38 +100,375 @@ class PriceCalculatorServiceImplTest {
     void testCalculatePrice(
             String displayName,
             Map<Long, Integer> bookQuantities,
-            List<BookEntity> bookEntities,
+            List<Book> books,
             BigDecimal expectedResult
     ) {
-        when(bookRepositoryMock.findAllById(bookQuantities.keySet()))
-                .thenReturn(bookEntities);
+        when(bookRepositoryMock.findAllBooks()).thenReturn(books);
+        bookCatalog.refresh();
 
         var actualResult = priceCalculatorService.calculatePrice(bookQuantities);
 
         assertThat(actualResult).isEqualByComparingTo(expectedResult);
     }
 
+    @Test
+    void testCalculatePriceReusesResultForCartWithSameShape() {
+        when(bookRepositoryMock.findAllBooks()).thenReturn(List.of(
+                new Book(1L, "Buch1", new BigDecimal("8.00"), null),
+                new Book(2L, "Buch2", new BigDecimal("8.00"), null),
+                new Book(3L, "Buch3", new BigDecimal("8"), null),
+                new Book(4L, "Buch4", new BigDecimal("8"), null)
+        ));
+        bookCatalog.refresh();
+
+        var firstResult = priceCalculatorService.calculatePrice(Map.of(1L, 2, 2L, 1));
+        var secondResult = priceCalculatorService.calculatePrice(Map.of(3L, 1, 4L, 2));
+
+        assertThat(secondResult).isEqualTo(firstResult).isEqualTo(new BigDecimal("23.20"));
+        assertThat(priceCache.misses()).isEqualTo(1);
+        assertThat(priceCache.hits()).isEqualTo(1);
+    }
+
+    @Test
+    void testCalculatePriceForShoppingCartMergesDuplicateBooks() {
+        when(bookRepositoryMock.findAllBooks()).thenReturn(List.of(
+                new Book(1L, "Buch1", new BigDecimal("8.00"), null),
+                new Book(2L, "Buch2", new BigDecimal("8.00"), null)
+        ));
+        bookCatalog.refresh();
+        var cart = new ShoppingCart.Builder(1)
+                .add(2L, 1)
+                .add(1L, 1)
+                .add(2L, 1)
+                .build();
+
+        assertThat(cart).isEqualTo(ShoppingCart.of(Map.of(1L, 1, 2L, 2)));
+        assertThat(priceCalculatorService.calculatePrice(cart)).isEqualTo(new BigDecimal("23.20"));
+        assertThat(priceCalculatorService.calculatePrice(Map.of(1L, 1, 2L, 2))).isEqualTo(new BigDecimal("23.20"));
+        assertThat(priceCache.misses()).isEqualTo(1);
+    }
+
+    @Test
+    void testCalculatePriceDiscountsOnlyWithinSeries() {
+        when(bookRepositoryMock.findAllBooks()).thenReturn(List.of(
+                new Book(1L, "Buch1", new BigDecimal("8.00"), "Reihe A"),
+                new Book(2L, "Buch2", new BigDecimal("8.00"), "Reihe A"),
+                new Book(3L, "Buch3", new BigDecimal("9.50"), "Reihe B"),
+                new Book(4L, "Buch4", new BigDecimal("12.99"), "Reihe B"),
+                new Book(5L, "Buch5", new BigDecimal("8.00"), null)
+        ));
+        bookCatalog.refresh();
+
+        // Reihe A: 2 x 8.00 x 0.95 + 8.00, Reihe B: (9.50 + 12.99) x 0.95, ohne Reihe: 8.00
+        assertThat(priceCalculatorService.calculatePrice(Map.of(1L, 2, 2L, 1, 3L, 1, 4L, 1, 5L, 1)))
+                .isEqualTo(new BigDecimal("52.57"));
+        assertThat(priceCalculatorService.calculatePrice(Map.of(1L, 1, 2L, 1, 3L, 1, 4L, 1, 5L, 1), new SolverMemo(100)))
+                .isEqualTo(new BigDecimal("44.57"));
+    }
+
+    @Test
+    void testCalculatePriceTimesCartOnceAndOnlyOnCacheMiss() {
+        when(bookRepositoryMock.findAllBooks()).thenReturn(List.of(
+                new Book(1L, "Buch1", new BigDecimal("8.00"), "Reihe A"),
+                new Book(2L, "Buch2", new BigDecimal("8.00"), "Reihe A"),
+                new Book(3L, "Buch3", new BigDecimal("9.50"), "Reihe B"),
+                new Book(4L, "Buch4", new BigDecimal("12.99"), "Reihe B"),
+                new Book(5L, "Buch5", new BigDecimal("8.00"), null)
+        ));
+        bookCatalog.refresh();
+
+        priceCalculatorService.calculatePrice(Map.of(1L, 2, 2L, 1, 3L, 1, 4L, 1, 5L, 1));
+        priceCalculatorService.calculatePrice(Map.of(1L, 2, 2L, 1, 3L, 1, 4L, 1, 5L, 1));
+
+        var calculations = meterRegistry.get("bookdiscount.pricing.calculation").timers();
+        assertThat(calculations).hasSize(1);
+        assertThat(calculations.iterator().next().getId().getTag("titles")).isEqualTo("5");
+        assertThat(calculations.iterator().next().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testCalculateAdditionsMatchesPriceOfEveryCartWithOneMoreCopy() {
+        when(bookRepositoryMock.findAllBooks()).thenReturn(List.of(
+                new Book(1L, "Buch1", new BigDecimal("8.00"), "Reihe A"),
+                new Book(2L, "Buch2", new BigDecimal("8.00"), "Reihe A"),
+                new Book(3L, "Buch3", new BigDecimal("9.50"), "Reihe B"),
+                new Book(4L, "Buch4", new BigDecimal("12.99"), "Reihe B"),
+                new Book(5L, "Buch5", new BigDecimal("8.00"), null),
+                new Book(6L, "Buch6", new BigDecimal("7.25"), null),
+                new Book(7L, "Buch7", new BigDecimal("15.00"), "Reihe C")
+        ));
+        bookCatalog.refresh();
+        var bookQuantities = Map.of(1L, 2, 2L, 1, 3L, 1, 5L, 3);
+
+        var additions = priceCalculatorService.calculateAdditions(ShoppingCart.of(bookQuantities));
+
+        assertThat(additions.price()).isEqualTo(priceCalculatorService.calculatePrice(bookQuantities));
+        // Buch7 is alone in Reihe C, one more copy of it cannot save anything
+        assertThat(additions.additions()).extracting(CartAddition::bookId).containsExactlyInAnyOrder(1L, 2L, 3L, 4L, 5L, 6L);
+        assertThat(additions.additions())
+                .isSortedAccordingTo(Comparator.comparing(CartAddition::saving).reversed());
+        for (var addition : additions.additions()) {
+            var withOneMore = new HashMap<>(bookQuantities);
+            withOneMore.merge(addition.bookId(), 1, Integer::sum);
+            var unitPrice = bookCatalog.snapshot().books().get(bookCatalog.snapshot().indexOf(addition.bookId())).price();
+
+            assertThat(addition.price()).as("book %d", addition.bookId())
+                    .isEqualTo(priceCalculatorService.calculatePrice(withOneMore));
+            assertThat(addition.saving()).as("book %d", addition.bookId())
+                    .isEqualTo(additions.price().add(unitPrice).subtract(addition.price()));
+        }
+        // Buch4 completes a pair with Buch3 in Reihe B
+        assertThat(additions.additions().get(0).bookId()).isEqualTo(4L);
+    }
+
+    @Test
+    void testCalculateAdditionsPricesBooksWithSamePriceAndQuantityOnce() {
+        when(bookRepositoryMock.findAllBooks()).thenReturn(LongStream.rangeClosed(1, 50)
+                .mapToObj(id -> new Book(id, "Buch" + id, new BigDecimal("8.00"), null))
+                .toList());
+        bookCatalog.refresh();
+
+        var additions = priceCalculatorService.calculateAdditions(ShoppingCart.of(Map.of(1L, 1, 2L, 2)));
+
+        assertThat(additions.price()).isEqualTo(new BigDecimal("23.20"));
+        assertThat(additions.additions()).hasSize(20);
+        // 2 x 8.00 x 0.95 + 8.00 -> 3 x 8.00 x 0.90 + 8.00
+        assertThat(additions.additions().get(0)).isEqualTo(new CartAddition(3L, new BigDecimal("29.60"), new BigDecimal("1.60")));
+        // the cart, one more copy of book 1, of book 2 and of any other book
+        assertThat(priceCache.misses()).isEqualTo(4);
+    }
+
+    @Test
+    void testCalculateAdditionsOfEmptyCartIsEmpty() {
+        when(bookRepositoryMock.findAllBooks()).thenReturn(List.of(new Book(1L, "Buch1", new BigDecimal("8.00"), null)));
+        bookCatalog.refresh();
+
+        var additions = priceCalculatorService.calculateAdditions(ShoppingCart.of(Map.of()));
+
+        assertThat(additions.price()).isEqualTo(new BigDecimal("0.00"));
+        assertThat(additions.additions()).isEmpty();
+        assertThat(priceCache.misses()).isZero();
+    }
+
+    @Test
+    void testCalculatePriceRejectsUnknownId() {
+        when(bookRepositoryMock.findAllBooks()).thenReturn(List.of(new Book(1L, "Buch1", new BigDecimal("8.00"), null)));
+        bookCatalog.refresh();
+
+        assertThatThrownBy(() -> priceCalculatorService.calculatePrice(Map.of(1L, 1, 2L, 1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown ID used!");
+    }
+
+    @Test
+    void testCalculatePricesKeepsOrderAndReportsErrorsPerCart() {
+        when(bookRepositoryMock.findAllBooks()).thenReturn(List.of(
+                new Book(1L, "Buch1", new BigDecimal("8.00"), null),
+                new Book(2L, "Buch2", new BigDecimal("8.00"), null)
+        ));
+        bookCatalog.refresh();
+
+        var results = priceCalculatorService.calculatePrices(List.of(
+                Map.of(1L, 1, 2L, 1),
+                Map.of(3L, 1),
+                Map.of(1L, 1),
+                Map.of(2L, 1, 1L, 1)
+        ));
+
+        assertThat(results).containsExactly(
+                CartPrice.of(new BigDecimal("15.20")),
+                CartPrice.failed("Unknown ID used!"),
+                CartPrice.of(new BigDecimal("8.00")),
+                CartPrice.of(new BigDecimal("15.20"))
+        );
+        assertThat(priceCache.misses()).isEqualTo(2);
+    }
+
+    @Test
+    void testCalculatePricesPricesCartsOnPricingExecutor() {
+        when(bookRepositoryMock.findAllBooks()).thenReturn(List.of(
+                new Book(1L, "Buch1", new BigDecimal("8.00"), null),
+                new Book(2L, "Buch2", new BigDecimal("8.00"), null)
+        ));
+        bookCatalog.refresh();
+        var pricingThreads = ConcurrentHashMap.<String>newKeySet();
+        doAnswer(invocation -> pricingThreads.add(Thread.currentThread().getName()))
+                .when(priceQuoteLogMock).record(any(), any(), any(), anyLong());
+
+        priceCalculatorService.calculatePrices(List.of(Map.of(1L, 1), Map.of(2L, 2), Map.of(1L, 1, 2L, 1)));
+        priceCalculatorService.calculatePrices(List.of(Map.of(1L, 3), Map.of(2L, 4)).iterator(), price -> {
+        });
+
+        assertThat(pricingThreads).isNotEmpty().allMatch(name -> name.startsWith("cart-pricing-"));
+    }
+
+    @Test
+    void testCalculateCartPricesMatchesPricesOfBookQuantities() {
+        when(bookRepositoryMock.findAllBooks()).thenReturn(List.of(
+                new Book(1L, "Buch1", new BigDecimal("8.00"), null),
+                new Book(2L, "Buch2", new BigDecimal("8.00"), null)
+        ));
+        bookCatalog.refresh();
+        var carts = List.of(
+                ShoppingCart.of(Map.of(1L, 1, 2L, 1)),
+                ShoppingCart.of(Map.of(3L, 1)),
+                new ShoppingCart.Builder().add(2L, 1).add(1L, 1).build()
+        );
+
+        var results = priceCalculatorService.calculateCartPrices(carts);
+        var streamedResults = new ArrayList<CartPrice>();
+        priceCalculatorService.calculateCartPrices(carts.iterator(), streamedResults::add);
+
+        assertThat(results).containsExactly(
+                CartPrice.of(new BigDecimal("15.20")),
+                CartPrice.failed("Unknown ID used!"),
+                CartPrice.of(new BigDecimal("15.20"))
+        );
+        assertThat(streamedResults).isEqualTo(results);
+        assertThat(priceCalculatorService.calculatePrices(carts.stream().map(ShoppingCart::toBookQuantities).toList()))
+                .isEqualTo(results);
+    }
+
+    @Test
+    void testCalculatePricesStreamKeepsOrderAndReportsErrorsPerCart() {
+        when(bookRepositoryMock.findAllBooks()).thenReturn(List.of(
+                new Book(1L, "Buch1", new BigDecimal("8.00"), null),
+                new Book(2L, "Buch2", new BigDecimal("8.00"), null)
+        ));
+        bookCatalog.refresh();
+        var carts = new ArrayList<Map<Long, Integer>>();
+        for (int i = 0; i < 1000; i++) {
+            carts.add(i % 3 == 2 ? Map.of(42L, 1) : Map.of(1L, 1 + i % 3, 2L, 1));
+        }
+        var cartIterator = carts.iterator();
+        var unreadable = new Iterator<Map<Long, Integer>>() {
+            boolean failed;
+
+            @Override
+            public boolean hasNext() {
+                return !failed;
+            }
+
+            @Override
+            public Map<Long, Integer> next() {
+                if (cartIterator.hasNext()) {
+                    return cartIterator.next();
+                }
+                failed = true;
+                throw new IllegalArgumentException("Invalid cart");
+            }
+        };
+
+        var results = new ArrayList<CartPrice>();
+        priceCalculatorService.calculatePrices(unreadable, results::add);
+
+        assertThat(results).hasSize(1001);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(results.get(i)).isEqualTo(switch (i % 3) {
+                case 0 -> CartPrice.of(new BigDecimal("15.20"));
+                case 1 -> CartPrice.of(new BigDecimal("23.20"));
+                default -> CartPrice.failed("Unknown ID used!");
+            });
+        }
+        assertThat(results.get(1000)).isEqualTo(CartPrice.failed("Invalid cart"));
+    }
+
+    @Test
+    void testCalculatePriceGivesUpAfterTimeBudget() {
+        when(bookRepositoryMock.findAllBooks()).thenReturn(LongStream.rangeClosed(1, 6)
+                .mapToObj(id -> new Book(id, "Buch" + id, new BigDecimal(id + ".99"), null))
+                .toList());
+        bookCatalog.refresh();
+        var pricingAdmission = new PricingAdmission(
+                new PricingAdmissionProperties(1_000_000, 2, Duration.ZERO, Duration.ofMillis(50), 0), pricingMetrics
+        );
+        var budgetedService = new PriceCalculatorServiceImpl(
+                bookCatalog, discountTierTable, new OptimalPriceCalculationEngine(), priceCache, pricingMetrics, pricingAdmission,
+                priceQuoteLogMock, new PricingExecutor(2)
+        );
+        var largeCart = Map.of(1L, 40, 2L, 38, 3L, 36, 4L, 34, 5L, 32, 6L, 30);
+
+        assertThatThrownBy(() -> budgetedService.calculatePrice(largeCart))
+                .isInstanceOf(PricingBudgetExceededException.class)
+                .hasMessage("Cart could not be priced within 50 ms");
+        assertThat(budgetedService.calculatePrices(List.of(Map.of(1L, 1), largeCart))).containsExactly(
+                CartPrice.of(new BigDecimal("1.99")),
+                CartPrice.failed("Cart could not be priced within 50 ms")
+        );
+        assertThat(priceCache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void testCalculatePriceAdmitsCartOnceForAllSeries() {
+        when(bookRepositoryMock.findAllBooks()).thenReturn(List.of(
+                new Book(1L, "Buch1", new BigDecimal("8.00"), "Reihe A"),
+                new Book(2L, "Buch2", new BigDecimal("9.50"), "Reihe B"),
+                new Book(3L, "Buch3", new BigDecimal("12.99"), "Reihe C")
+        ));
+        bookCatalog.refresh();
+        // every cart the cache does not know is expensive
+        var pricingAdmission = new PricingAdmission(
+                new PricingAdmissionProperties(1, 1, Duration.ZERO, Duration.ofSeconds(10), 0), pricingMetrics
+        );
+        var admittedService = new PriceCalculatorServiceImpl(
+                bookCatalog, discountTierTable, new OptimalPriceCalculationEngine(), priceCache, pricingMetrics, pricingAdmission,
+                priceQuoteLogMock, new PricingExecutor(2)
+        );
+
+        assertThat(admittedService.calculatePrice(Map.of(1L, 1, 2L, 1, 3L, 1))).isEqualTo(new BigDecimal("30.49"));
+        assertThat(admittedService.calculateAdditions(ShoppingCart.of(Map.of(1L, 1, 2L, 1))).price()).isEqualTo(new BigDecimal("17.50"));
+        assertThat(admittedService.calculatePrice(Map.of(1L, 1, 3L, 1))).isEqualTo(new BigDecimal("20.99"));
+
+        // the last cart only consists of cached series
+        assertThat(meterRegistry.get("bookdiscount.pricing.admission").tag("result", "admitted").counter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void testCalculatePriceRejectsCartWhoseSeriesTogetherCostTooMuch() {
+        when(bookRepositoryMock.findAllBooks()).thenReturn(List.of(
+                new Book(1L, "Buch1", new BigDecimal("8.00"), "Reihe A"),
+                new Book(2L, "Buch2", new BigDecimal("9.50"), "Reihe A"),
+                new Book(3L, "Buch3", new BigDecimal("8.00"), "Reihe B"),
+                new Book(4L, "Buch4", new BigDecimal("9.50"), "Reihe B")
+        ));
+        bookCatalog.refresh();
+        var engine = new OptimalPriceCalculationEngine();
+        var seriesCost = engine.estimatedCost(List.of(new CartLine(1L, 800, 3), new CartLine(2L, 950, 3)));
+        var pricingAdmission = new PricingAdmission(
+                new PricingAdmissionProperties(Long.MAX_VALUE, 1, Duration.ZERO, Duration.ofSeconds(10), seriesCost), pricingMetrics
+        );
+        var admittedService = new PriceCalculatorServiceImpl(
+                bookCatalog, discountTierTable, engine, priceCache, pricingMetrics, pricingAdmission, priceQuoteLogMock,
+                new PricingExecutor(2)
+        );
+
+        assertThatThrownBy(() -> admittedService.calculatePrice(Map.of(1L, 3, 2L, 3, 3L, 3, 4L, 3)))
+                .isInstanceOf(PricingBudgetExceededException.class)
+                .hasMessage("Cart is too large to be priced");
+        assertThat(admittedService.calculatePrice(Map.of(1L, 3, 2L, 3))).isEqualTo(new BigDecimal("49.88"));
+    }
 
     private static Stream<Arguments> provideCalculatePriceData() {
         return Stream.of(
                 Arguments.of(
                         "Buch mit Menge 0 ausgewählt",
                         Map.of(1L, 0),
-                        List.of(new BookEntity(1L, "Buch1", new BigDecimal("8.00"))),
+                        List.of(new Book(1L, "Buch1", new BigDecimal("8.00"), null)),
                         BigDecimal.ZERO
                 ),
                 Arguments.of(
                         "Ein einzelnes Buch ohne Rabatt",
                         Map.of(1L, 1),
-                        List.of(new BookEntity(1L, "Buch1", new BigDecimal("8.00"))),
+                        List.of(new Book(1L, "Buch1", new BigDecimal("8.00"), null)),
                         new BigDecimal("8.00")
                 ),
                 Arguments.of(
                         "Zwei verschiedene Bücher mit 5% Rabatt",
                         Map.of(1L, 1, 2L, 1),
                         List.of(
-                                new BookEntity(1L, "Buch1", new BigDecimal("8.00")),
-                                new BookEntity(2L, "Buch2", new BigDecimal("8.00"))
+                                new Book(1L, "Buch1", new BigDecimal("8.00"), null),
+                                new Book(2L, "Buch2", new BigDecimal("8.00"), null)
                         ),
                         new BigDecimal("15.2")
                 ),
@@ -76,8 +476,8 @@ class PriceCalculatorServiceImplTest {
                         "Drei Bücher, aber nur zwei verschiedene",
                         Map.of(1L, 1, 2L, 2),
                         List.of(
-                                new BookEntity(1L, "Buch1", new BigDecimal("8.00")),
-                                new BookEntity(2L, "Buch2", new BigDecimal("8.00"))
+                                new Book(1L, "Buch1", new BigDecimal("8.00"), null),
+                                new Book(2L, "Buch2", new BigDecimal("8.00"), null)
                         ),
                         new BigDecimal("23.2")
                 ),
@@ -85,9 +485,9 @@ class PriceCalculatorServiceImplTest {
                         "Drei verschiedene Bücher mit 10% Rabatt",
                         Map.of(1L, 1, 2L, 1, 3L, 1),
                         List.of(
-                                new BookEntity(1L, "Buch1", new BigDecimal("8.00")),
-                                new BookEntity(2L, "Buch2", new BigDecimal("8.00")),
-                                new BookEntity(3L, "Buch3", new BigDecimal("8.00"))
+                                new Book(1L, "Buch1", new BigDecimal("8.00"), null),
+                                new Book(2L, "Buch2", new BigDecimal("8.00"), null),
+                                new Book(3L, "Buch3", new BigDecimal("8.00"), null)
                         ),
                         new BigDecimal("21.6")
                 ),
@@ -95,10 +495,10 @@ class PriceCalculatorServiceImplTest {
                         "Vier verschiedene Bücher mit 20% Rabatt",
                         Map.of(1L, 1, 2L, 1, 3L, 1, 4L, 1),
                         List.of(
-                                new BookEntity(1L, "Buch1", new BigDecimal("8.00")),
-                                new BookEntity(2L, "Buch2", new BigDecimal("8.00")),
-                                new BookEntity(3L, "Buch3", new BigDecimal("8.00")),
-                                new BookEntity(4L, "Buch4", new BigDecimal("8.00"))
+                                new Book(1L, "Buch1", new BigDecimal("8.00"), null),
+                                new Book(2L, "Buch2", new BigDecimal("8.00"), null),
+                                new Book(3L, "Buch3", new BigDecimal("8.00"), null),
+                                new Book(4L, "Buch4", new BigDecimal("8.00"), null)
                         ),
                         new BigDecimal("25.6")
                 ),
@@ -106,11 +506,11 @@ class PriceCalculatorServiceImplTest {
                         "Fünf verschiedene Bücher mit 25% Rabatt",
                         Map.of(1L, 1, 2L, 1, 3L, 1, 4L, 1, 5L, 1),
                         List.of(
-                                new BookEntity(1L, "Buch1", new BigDecimal("8.00")),
-                                new BookEntity(2L, "Buch2", new BigDecimal("8.00")),
-                                new BookEntity(3L, "Buch3", new BigDecimal("8.00")),
-                                new BookEntity(4L, "Buch4", new BigDecimal("8.00")),
-                                new BookEntity(5L, "Buch5", new BigDecimal("8.00"))
+                                new Book(1L, "Buch1", new BigDecimal("8.00"), null),
+                                new Book(2L, "Buch2", new BigDecimal("8.00"), null),
+                                new Book(3L, "Buch3", new BigDecimal("8.00"), null),
+                                new Book(4L, "Buch4", new BigDecimal("8.00"), null),
+                                new Book(5L, "Buch5", new BigDecimal("8.00"), null)
                         ),
                         new BigDecimal("30")
                 ),
@@ -118,11 +518,11 @@ class PriceCalculatorServiceImplTest {
                         "Ein einzelnes Buch, aber alle anderen mit Menge 0 ausgewählt",
                         Map.of(1L, 0, 2L, 1, 3L, 0, 4L, 0, 5L, 0),
                         List.of(
-                                new BookEntity(1L, "Buch1", new BigDecimal("8.00")),
-                                new BookEntity(2L, "Buch2", new BigDecimal("8.00")),
-                                new BookEntity(3L, "Buch3", new BigDecimal("8.00")),
-                                new BookEntity(4L, "Buch4", new BigDecimal("8.00")),
-                                new BookEntity(5L, "Buch5", new BigDecimal("8.00"))
+                                new Book(1L, "Buch1", new BigDecimal("8.00"), null),
+                                new Book(2L, "Buch2", new BigDecimal("8.00"), null),
+                                new Book(3L, "Buch3", new BigDecimal("8.00"), null),
+                                new Book(4L, "Buch4", new BigDecimal("8.00"), null),
+                                new Book(5L, "Buch5", new BigDecimal("8.00"), null)
                         ),
                         new BigDecimal("8")
                 ),
@@ -130,11 +530,11 @@ class PriceCalculatorServiceImplTest {
                         "Buch1 mal 2; Buch2 mal 2; Buch3 mal 2; Buch4 mal 1; Buch5 mal 1",
                         Map.of(1L, 2, 2L, 2, 3L, 2, 4L, 1, 5L, 1),
                         List.of(
-                                new BookEntity(1L, "Buch1", new BigDecimal("8.00")),
-                                new BookEntity(2L, "Buch2", new BigDecimal("8.00")),
-                                new BookEntity(3L, "Buch3", new BigDecimal("8.00")),
-                                new BookEntity(4L, "Buch4", new BigDecimal("8.00")),
-                                new BookEntity(5L, "Buch5", new BigDecimal("8.00"))
+                                new Book(1L, "Buch1", new BigDecimal("8.00"), null),
+                                new Book(2L, "Buch2", new BigDecimal("8.00"), null),
+                                new Book(3L, "Buch3", new BigDecimal("8.00"), null),
+                                new Book(4L, "Buch4", new BigDecimal("8.00"), null),
+                                new Book(5L, "Buch5", new BigDecimal("8.00"), null)
                         ),
                         new BigDecimal("51.2")
                 ),
@@ -142,11 +542,11 @@ class PriceCalculatorServiceImplTest {
                         "Buch1 mal 1; Buch2 mal 1; Buch3 mal 2; Buch4 mal 2; Buch5 mal 2",
                         Map.of(1L, 1, 2L, 1, 3L, 2, 4L, 2, 5L, 2),
                         List.of(
-                                new BookEntity(1L, "Buch1", new BigDecimal("8.00")),
-                                new BookEntity(2L, "Buch2", new BigDecimal("8.00")),
-                                new BookEntity(3L, "Buch3", new BigDecimal("8.00")),
-                                new BookEntity(4L, "Buch4", new BigDecimal("8.00")),
-                                new BookEntity(5L, "Buch5", new BigDecimal("8.00"))
+                                new Book(1L, "Buch1", new BigDecimal("8.00"), null),
+                                new Book(2L, "Buch2", new BigDecimal("8.00"), null),
+                                new Book(3L, "Buch3", new BigDecimal("8.00"), null),
+                                new Book(4L, "Buch4", new BigDecimal("8.00"), null),
+                                new Book(5L, "Buch5", new BigDecimal("8.00"), null)
                         ),
                         new BigDecimal("51.2")
                 ),
@@ -154,11 +554,11 @@ class PriceCalculatorServiceImplTest {
                         "Buch1 mal 3; Buch2 mal 3; Buch3 mal 3; Buch4 mal 2; Buch5 mal 2",
                         Map.of(1L, 3, 2L, 3, 3L, 3, 4L, 2, 5L, 2),
                         List.of(
-                                new BookEntity(1L, "Buch1", new BigDecimal("8.00")),
-                                new BookEntity(2L, "Buch2", new BigDecimal("8.00")),
-                                new BookEntity(3L, "Buch3", new BigDecimal("8.00")),
-                                new BookEntity(4L, "Buch4", new BigDecimal("8.00")),
-                                new BookEntity(5L, "Buch5", new BigDecimal("8.00"))
+                                new Book(1L, "Buch1", new BigDecimal("8.00"), null),
+                                new Book(2L, "Buch2", new BigDecimal("8.00"), null),
+                                new Book(3L, "Buch3", new BigDecimal("8.00"), null),
+                                new Book(4L, "Buch4", new BigDecimal("8.00"), null),
+                                new Book(5L, "Buch5", new BigDecimal("8.00"), null)
                         ),
                         new BigDecimal("81.2")
                 ),
@@ -166,11 +566,11 @@ class PriceCalculatorServiceImplTest {
                         "Buch1 mal 4; Buch2 mal 4; Buch3 mal 4; Buch4 mal 3; Buch5 mal 3",
                         Map.of(1L, 4, 2L, 4, 3L, 4, 4L, 3, 5L, 3),
                         List.of(
-                                new BookEntity(1L, "Buch1", new BigDecimal("8.00")),
-                                new BookEntity(2L, "Buch2", new BigDecimal("8.00")),
-                                new BookEntity(3L, "Buch3", new BigDecimal("8.00")),
-                                new BookEntity(4L, "Buch4", new BigDecimal("8.00")),
-                                new BookEntity(5L, "Buch5", new BigDecimal("8.00"))
+                                new Book(1L, "Buch1", new BigDecimal("8.00"), null),
+                                new Book(2L, "Buch2", new BigDecimal("8.00"), null),
+                                new Book(3L, "Buch3", new BigDecimal("8.00"), null),
+                                new Book(4L, "Buch4", new BigDecimal("8.00"), null),
+                                new Book(5L, "Buch5", new BigDecimal("8.00"), null)
                         ),
                         new BigDecimal("111.2")
                 ),
@@ -178,11 +578,11 @@ class PriceCalculatorServiceImplTest {
                         "Buch1 mal 5; Buch2 mal 5; Buch3 mal 5; Buch4 mal 4; Buch5 mal 4",
                         Map.of(1L, 5, 2L, 5, 3L, 5, 4L, 4, 5L, 4),
                         List.of(
-                                new BookEntity(1L, "Buch1", new BigDecimal("8.00")),
-                                new BookEntity(2L, "Buch2", new BigDecimal("8.00")),
-                                new BookEntity(3L, "Buch3", new BigDecimal("8.00")),
-                                new BookEntity(4L, "Buch4", new BigDecimal("8.00")),
-                                new BookEntity(5L, "Buch5", new BigDecimal("8.00"))
+                                new Book(1L, "Buch1", new BigDecimal("8.00"), null),
+                                new Book(2L, "Buch2", new BigDecimal("8.00"), null),
+                                new Book(3L, "Buch3", new BigDecimal("8.00"), null),
+                                new Book(4L, "Buch4", new BigDecimal("8.00"), null),
+                                new Book(5L, "Buch5", new BigDecimal("8.00"), null)
                         ),
                         new BigDecimal("141.2")
                 ),
@@ -190,11 +590,11 @@ class PriceCalculatorServiceImplTest {
                         "Buch1 mal 0; Buch2 mal 5; Buch3 mal 5; Buch4 mal 5; Buch5 mal 4",
                         Map.of(1L, 0, 2L, 5, 3L, 5, 4L, 5, 5L, 4),
                         List.of(
-                                new BookEntity(1L, "Buch1", new BigDecimal("8.00")),
-                                new BookEntity(2L, "Buch2", new BigDecimal("8.00")),
-                                new BookEntity(3L, "Buch3", new BigDecimal("8.00")),
-                                new BookEntity(4L, "Buch4", new BigDecimal("8.00")),
-                                new BookEntity(5L, "Buch5", new BigDecimal("8.00"))
+                                new Book(1L, "Buch1", new BigDecimal("8.00"), null),
+                                new Book(2L, "Buch2", new BigDecimal("8.00"), null),
+                                new Book(3L, "Buch3", new BigDecimal("8.00"), null),
+                                new Book(4L, "Buch4", new BigDecimal("8.00"), null),
+                                new Book(5L, "Buch5", new BigDecimal("8.00"), null)
                         ),
                         new BigDecimal("124")
                 )
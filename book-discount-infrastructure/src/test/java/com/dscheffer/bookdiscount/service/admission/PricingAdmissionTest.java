@@ -0,0 +1,93 @@
+package com.dscheffer.bookdiscount.service.admission;
+
+import com.dscheffer.bookdiscount.service.PricingBudgetExceededException;
+import com.dscheffer.bookdiscount.service.PricingRejectedException;
+import com.dscheffer.bookdiscount.service.metrics.PricingMetrics;
+import com.dscheffer.bookdiscount.service.metrics.PricingMetricsProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PricingAdmissionTest {
+
+    private static final long EXPENSIVE_COST = 1_000;
+    private static final long MAX_COST = 1_000_000;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    PricingMetrics pricingMetrics = new PricingMetrics(
+            meterRegistry, new PricingMetricsProperties(Duration.ofMillis(100), Duration.ofSeconds(10))
+    );
+
+    PricingAdmission pricingAdmission = new PricingAdmission(
+            new PricingAdmissionProperties(EXPENSIVE_COST, 1, Duration.ofMillis(50), Duration.ofMillis(200), MAX_COST),
+            pricingMetrics
+    );
+
+    @Test
+    void testAdmitRejectsExpensiveSearchWhileAllPermitsAreTaken() throws Exception {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var running = CompletableFuture.supplyAsync(() -> pricingAdmission.admit(EXPENSIVE_COST, budget -> {
+            started.countDown();
+            await(release);
+            return "first";
+        }));
+        started.await();
+
+        assertThatThrownBy(() -> pricingAdmission.admit(EXPENSIVE_COST, budget -> "second"))
+                .isInstanceOf(PricingRejectedException.class);
+        String cheap = pricingAdmission.admit(EXPENSIVE_COST - 1, budget -> "cheap");
+        assertThat(cheap).isEqualTo("cheap");
+
+        release.countDown();
+        assertThat(running.get()).isEqualTo("first");
+        String third = pricingAdmission.admit(EXPENSIVE_COST, budget -> "third");
+        assertThat(third).isEqualTo("third");
+        assertThat(admissions("admitted")).isEqualTo(2);
+        assertThat(admissions("rejected")).isEqualTo(1);
+    }
+
+    @Test
+    void testAdmitCountsSearchesExceedingTheBudget() {
+        assertThatThrownBy(() -> pricingAdmission.admit(EXPENSIVE_COST, budget -> {
+            while (true) {
+                budget.check();
+            }
+        })).isInstanceOf(PricingBudgetExceededException.class);
+
+        assertThat(meterRegistry.get("bookdiscount.pricing.budget.exceeded").counter().count()).isEqualTo(1);
+        String next = pricingAdmission.admit(EXPENSIVE_COST, budget -> "next");
+        assertThat(next).isEqualTo("next");
+    }
+
+    @Test
+    void testAdmitRejectsSearchAboveMaxCostWithoutRunningIt() {
+        assertThatThrownBy(() -> pricingAdmission.admit(MAX_COST + 1, budget -> {
+            throw new AssertionError("search must not run");
+        })).isInstanceOf(PricingBudgetExceededException.class)
+                .hasMessage("Cart is too large to be priced");
+
+        assertThat(meterRegistry.get("bookdiscount.pricing.budget.exceeded").counter().count()).isEqualTo(1);
+        String atMax = pricingAdmission.admit(MAX_COST, budget -> "at max");
+        assertThat(atMax).isEqualTo("at max");
+    }
+
+    private double admissions(String result) {
+        return meterRegistry.get("bookdiscount.pricing.admission").tag("result", result).counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.dscheffer.bookdiscount.service.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LruCacheTest {
+
+    AtomicLong now = new AtomicLong();
+
+    LruCache<String, Integer> cache = new LruCache<>(2, Duration.ofNanos(100), now::get);
+
+    @Test
+    void testGetComputesValueOnlyOnce() {
+        assertThat(cache.get("a", k -> 1)).isEqualTo(1);
+        assertThat(cache.get("a", k -> 2)).isEqualTo(1);
+
+        assertThat(cache.hits()).isEqualTo(1);
+        assertThat(cache.misses()).isEqualTo(1);
+    }
+
+    @Test
+    void testGetEvictsLeastRecentlyUsedEntry() {
+        cache.get("a", k -> 1);
+        cache.get("b", k -> 2);
+        cache.get("a", k -> 1);
+        cache.get("c", k -> 3);
+
+        assertThat(cache.get("a", k -> 10)).isEqualTo(1);
+        assertThat(cache.get("b", k -> 20)).isEqualTo(20);
+        assertThat(cache.evictions()).isEqualTo(2);
+    }
+
+    @Test
+    void testGetRecomputesExpiredEntry() {
+        cache.get("a", k -> 1);
+        now.addAndGet(100);
+
+        assertThat(cache.get("a", k -> 2)).isEqualTo(2);
+        assertThat(cache.misses()).isEqualTo(2);
+    }
+
+    @Test
+    void testClearDropsValuesComputedConcurrently() {
+        cache.get("a", k -> {
+            cache.clear();
+            return 1;
+        });
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void testZeroMaxSizeDisablesCaching() {
+        var disabledCache = new LruCache<String, Integer>(0, Duration.ofHours(1));
+        disabledCache.get("a", k -> 1);
+
+        assertThat(disabledCache.get("a", k -> 2)).isEqualTo(2);
+        assertThat(disabledCache.size()).isZero();
+    }
+
+    @Test
+    void testPutRestartsTimeToLive() {
+        cache.put("a", 1);
+        now.addAndGet(60);
+        cache.put("a", 2);
+        now.addAndGet(60);
+
+        assertThat(cache.getIfPresent("a")).isEqualTo(2);
+        now.addAndGet(40);
+        assertThat(cache.getIfPresent("a")).isNull();
+    }
+
+    @Test
+    void testReplaceOnlyStoresPresentEntries() {
+        cache.put("a", 1);
+        now.addAndGet(60);
+
+        assertThat(cache.replace("a", 2)).isTrue();
+        assertThat(cache.replace("b", 3)).isFalse();
+        now.addAndGet(60);
+        assertThat(cache.getIfPresent("a")).isEqualTo(2);
+        assertThat(cache.getIfPresent("b")).isNull();
+        now.addAndGet(40);
+        assertThat(cache.replace("a", 4)).isFalse();
+        assertThat(cache.getIfPresent("a")).isNull();
+    }
+
+    @Test
+    void testRemoveReturnsRemovedValue() {
+        cache.put("a", 1);
+
+        assertThat(cache.remove("a")).isEqualTo(1);
+        assertThat(cache.remove("a")).isNull();
+        assertThat(cache.getIfPresent("a")).isNull();
+    }
+}
@@ -0,0 +1,190 @@
+package com.dscheffer.bookdiscount.service.catalog;
+
+import com.dscheffer.bookdiscount.service.CatalogImportRunningException;
+import com.dscheffer.bookdiscount.service.catalog.CatalogImport.BookRow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogImportTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    JdbcTemplate jdbcTemplateMock;
+
+    @Mock
+    PlatformTransactionManager transactionManagerMock;
+
+    @Mock
+    BookCatalog bookCatalogMock;
+
+    List<List<BookRow>> writtenBatches = new ArrayList<>();
+
+    @Test
+    void testImportCsvUpsertsRowsInBatchesAndReloadsCatalogOnce() throws Exception {
+        recordWrittenBatches();
+        var csv = "name,price,series\n" + IntStream.rangeClosed(1, 25)
+                .mapToObj(i -> "Buch" + i + "," + i + ".50," + (i % 2 == 0 ? "Reihe A" : ""))
+                .collect(Collectors.joining("\n"));
+
+        var result = catalogImport(10).importCsv(new StringReader(csv));
+
+        assertThat(writtenBatches).extracting(List::size).containsExactly(10, 10, 5);
+        assertThat(writtenBatches.get(0).get(0)).isEqualTo(new BookRow("Buch1", new BigDecimal("1.50"), null));
+        assertThat(writtenBatches.get(0).get(1)).isEqualTo(new BookRow("Buch2", new BigDecimal("2.50"), "Reihe A"));
+        assertThat(result.rowsRead()).isEqualTo(25);
+        assertThat(result.rowsImported()).isEqualTo(25);
+        assertThat(result.rowsRejected()).isZero();
+        verify(transactionManagerMock, times(3)).commit(any());
+        verify(bookCatalogMock).refresh();
+        assertThat(meterRegistry.get("bookdiscount.catalog.import.rows").tag("result", "imported").counter().count())
+                .isEqualTo(25);
+    }
+
+    @Test
+    void testImportCsvSkipsInvalidRowsAndReportsThem() throws Exception {
+        recordWrittenBatches();
+        var csv = """
+                Buch1,8.00
+
+                Buch2,8.005
+                Buch3
+                Buch4,-1
+                "Buch5, Band ""1""\",9.99,Reihe B
+                """;
+
+        var result = catalogImport(10).importCsv(new StringReader(csv));
+
+        assertThat(writtenBatches).containsExactly(List.of(
+                new BookRow("Buch1", new BigDecimal("8.00"), null),
+                new BookRow("Buch5, Band \"1\"", new BigDecimal("9.99"), "Reihe B")
+        ));
+        assertThat(result.rowsRead()).isEqualTo(5);
+        assertThat(result.rowsImported()).isEqualTo(2);
+        assertThat(result.rowsRejected()).isEqualTo(3);
+        assertThat(result.errors()).containsExactly(
+                "Line 3: Invalid price 8.005, expected 0 to 99999999.99 with at most two decimals",
+                "Line 4: Expected name,price[,series] but got 1 columns",
+                "Line 5: Invalid price -1, expected 0 to 99999999.99 with at most two decimals"
+        );
+        assertThat(meterRegistry.get("bookdiscount.catalog.import.rows").tag("result", "rejected").counter().count())
+                .isEqualTo(3);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("provideInvalidRowData")
+    void testParseRejectsInvalidRow(String displayName, String line, String expectedMessage) {
+        assertThatThrownBy(() -> BookRow.parse(line))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage(expectedMessage);
+    }
+
+    @Test
+    void testImportCsvRejectsConcurrentImport() throws Exception {
+        var reading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var catalogImport = catalogImport(10);
+        var running = CompletableFuture.supplyAsync(() -> {
+            try {
+                return catalogImport.importCsv(new BlockingReader(reading, release));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        reading.await();
+
+        assertThatThrownBy(() -> catalogImport.importCsv(new StringReader("Buch1,8.00")))
+                .isInstanceOf(CatalogImportRunningException.class);
+
+        release.countDown();
+        assertThat(running.get().rowsRead()).isZero();
+    }
+
+    private static Stream<Arguments> provideInvalidRowData() {
+        return Stream.of(
+                Arguments.of("Name fehlt", " ,8.00", "Name must have 1 to 100 characters"),
+                Arguments.of("Name zu lang", "x".repeat(101) + ",8.00", "Name must have 1 to 100 characters"),
+                Arguments.of("Preis keine Zahl", "Buch1,acht", "Invalid price 'acht'"),
+                Arguments.of("Preis zu hoch", "Buch1,100000000",
+                        "Invalid price 100000000, expected 0 to 99999999.99 with at most two decimals"),
+                Arguments.of("Zu viele Spalten", "Buch1,8.00,Reihe A,4", "Expected name,price[,series] but got 4 columns"),
+                Arguments.of("Anführungszeichen nicht geschlossen", "\"Buch1,8.00", "Unterminated quote")
+        );
+    }
+
+    private CatalogImport catalogImport(int batchSize) {
+        return new CatalogImport(
+                jdbcTemplateMock, transactionManagerMock, bookCatalogMock, new CatalogImportProperties(batchSize, 10), meterRegistry
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private void recordWrittenBatches() {
+        when(jdbcTemplateMock.batchUpdate(
+                eq(CatalogImport.UPSERT), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)
+        )).thenAnswer(invocation -> {
+            writtenBatches.add(List.copyOf((Collection<BookRow>) invocation.getArgument(1)));
+            return new int[0][];
+        });
+    }
+
+    /**
+     * Signals that the import started reading, then blocks until released and ends the file.
+     */
+    private static class BlockingReader extends Reader {
+
+        private final CountDownLatch reading;
+        private final CountDownLatch release;
+
+        BlockingReader(CountDownLatch reading, CountDownLatch release) {
+            this.reading = reading;
+            this.release = release;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            reading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return -1;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
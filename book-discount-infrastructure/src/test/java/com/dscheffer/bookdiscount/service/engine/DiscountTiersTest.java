@@ -0,0 +1,34 @@
+package com.dscheffer.bookdiscount.service.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DiscountTiersTest {
+
+    @Test
+    void testOfCompilesFactorsIntoBasisPoints() {
+        var discountTiers = DiscountTiers.of(Map.of(2, new BigDecimal("0.95"), 4, new BigDecimal("0.8"), 6, BigDecimal.ONE));
+
+        assertThat(discountTiers.largestDiscountedSetSize()).isEqualTo(4);
+        assertThat(discountTiers.basisPoints(2)).isEqualTo(9500);
+        assertThat(discountTiers.basisPoints(3)).isEqualTo(DiscountTiers.NO_DISCOUNT);
+        assertThat(discountTiers.setCost(4)).isEqualTo(32000);
+        assertThat(discountTiers.setCost(7)).isEqualTo(70000);
+        assertThat(discountTiers.factors()).containsOnlyKeys(2, 4);
+    }
+
+    @Test
+    void testOfRejectsInvalidFactors() {
+        assertThatThrownBy(() -> DiscountTiers.of(Map.of(2, new BigDecimal("1.05"))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> DiscountTiers.of(Map.of(2, new BigDecimal("0.12345"))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> DiscountTiers.of(Map.of(0, new BigDecimal("0.9"))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
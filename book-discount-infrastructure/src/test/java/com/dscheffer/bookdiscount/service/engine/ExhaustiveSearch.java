@@ -0,0 +1,77 @@
+package com.dscheffer.bookdiscount.service.engine;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Test oracle for the cheapest grouping: generates every way to split a cart into discount sets of distinct titles
+ * once and prices each of them on {@link BigDecimal}s. Exponential in the cart size, so only for small carts.
+ */
+final class ExhaustiveSearch {
+
+    // sets are bit masks over the cart lines, this is their unsigned maximum
+    private static final long ALL_SETS = -1L;
+
+    private final List<CartLine> cartLines;
+    private final DiscountTiers discountTiers;
+    private BigDecimal cheapest;
+
+    private ExhaustiveSearch(List<CartLine> cartLines, DiscountTiers discountTiers) {
+        this.cartLines = cartLines;
+        this.discountTiers = discountTiers;
+    }
+
+    /**
+     * @return the unrounded price of the cheapest grouping of at most 64 cart lines
+     */
+    static BigDecimal cheapestPrice(List<CartLine> cartLines, DiscountTiers discountTiers) {
+        if (cartLines.size() > Long.SIZE) {
+            throw new IllegalArgumentException("The exhaustive search prices at most " + Long.SIZE + " titles");
+        }
+        var search = new ExhaustiveSearch(cartLines, discountTiers);
+        search.generate(cartLines.stream().mapToInt(CartLine::quantity).toArray(), ALL_SETS, BigDecimal.ZERO);
+        return search.cheapest == null ? BigDecimal.ZERO : search.cheapest;
+    }
+
+    /**
+     * Every grouping has a set holding the first title left, so the next set always holds it. Its sets are taken in
+     * descending order so that no grouping is generated twice.
+     *
+     * @param largestSet largest set the next one may be, as long as it holds the same first title
+     */
+    private void generate(int[] quantitiesLeft, long largestSet, BigDecimal price) {
+        var first = 0;
+        while (first < quantitiesLeft.length && quantitiesLeft[first] == 0) {
+            first++;
+        }
+        if (first == quantitiesLeft.length) {
+            if (cheapest == null || price.compareTo(cheapest) < 0) {
+                cheapest = price;
+            }
+            return;
+        }
+        generateSets(quantitiesLeft, first, first + 1, 1L << first, largestSet, price);
+    }
+
+    private void generateSets(int[] quantitiesLeft, int first, int from, long set, long largestSet, BigDecimal price) {
+        for (int title = from; title < quantitiesLeft.length; title++) {
+            if (quantitiesLeft[title] > 0) {
+                generateSets(quantitiesLeft, first, title + 1, set | 1L << title, largestSet, price);
+            }
+        }
+        if (Long.compareUnsigned(set, largestSet) > 0) {
+            return;
+        }
+
+        var next = quantitiesLeft.clone();
+        var setPrice = BigDecimal.ZERO;
+        for (int title = first; title < next.length; title++) {
+            if ((set & 1L << title) != 0) {
+                next[title]--;
+                setPrice = setPrice.add(cartLines.get(title).price());
+            }
+        }
+        setPrice = setPrice.multiply(discountTiers.discountFactor(Long.bitCount(set)));
+        generate(next, next[first] > 0 ? set : ALL_SETS, price.add(setPrice));
+    }
+}
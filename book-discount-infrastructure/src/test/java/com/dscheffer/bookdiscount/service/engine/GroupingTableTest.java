@@ -0,0 +1,94 @@
+package com.dscheffer.bookdiscount.service.engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GroupingTableTest {
+
+    private static final int MAX_TITLES = 5;
+    private static final int MAX_COPIES = 6;
+
+    @TempDir
+    Path tempDir;
+
+    GroupingTable groupingTable;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        var path = tempDir.resolve("grouping-table.bin");
+        GroupingTable.write(path, MAX_TITLES, MAX_COPIES, DiscountTiers.DEFAULT);
+        groupingTable = GroupingTable.open(path);
+    }
+
+    @Test
+    void testTableMatchesLiveSolverForAllCoveredCarts() {
+        for (int[] quantities : sortedQuantityVectors()) {
+            var composition = groupingTable.composition(quantities);
+
+            assertThat(groupingTable.covers(quantities)).isTrue();
+            assertThat(groupingTable.cheapestGrouping(quantities, DiscountTiers.DEFAULT))
+                    .as("quantities %s", Arrays.toString(quantities))
+                    .isEqualTo(GroupingSolver.cheapestGrouping(quantities, DiscountTiers.DEFAULT));
+            assertThat(IntStream.range(1, composition.length).map(setSize -> setSize * composition[setSize]).sum())
+                    .as("copies in composition of %s", Arrays.toString(quantities))
+                    .isEqualTo(Arrays.stream(quantities).sum());
+        }
+    }
+
+    @Test
+    void testCoversOnlyCartsWithinBounds() {
+        assertThat(groupingTable.covers(new int[]{MAX_COPIES, 1})).isTrue();
+        assertThat(groupingTable.covers(new int[]{MAX_COPIES + 1, 1})).isFalse();
+        assertThat(groupingTable.covers(new int[]{1, 1, 1, 1, 1, 1})).isFalse();
+    }
+
+    @Test
+    void testEngineUsesTableOnlyForMatchingDiscountTiers() {
+        var engine = new OptimalPriceCalculationEngine(groupingTable, SearchListener.NONE);
+        var otherTiers = DiscountTiers.of(Map.of(2, new BigDecimal("0.5"), 3, new BigDecimal("0.9")));
+        var cartLines = List.of(new CartLine(1, 800, 1), new CartLine(2, 800, 1), new CartLine(3, 800, 1), new CartLine(4, 800, 1));
+
+        assertThat(groupingTable.matches(DiscountTiers.DEFAULT)).isTrue();
+        assertThat(groupingTable.matches(otherTiers)).isFalse();
+        assertThat(engine.calculatePrice(cartLines, DiscountTiers.DEFAULT)).isEqualByComparingTo("25.6");
+        assertThat(engine.calculatePrice(cartLines, otherTiers)).isEqualByComparingTo("16");
+    }
+
+    @Test
+    void testOpenRejectsOtherFiles() throws IOException {
+        var path = Files.writeString(tempDir.resolve("other.bin"), "not a grouping table");
+
+        assertThatThrownBy(() -> GroupingTable.open(path)).isInstanceOf(IOException.class);
+    }
+
+    private static List<int[]> sortedQuantityVectors() {
+        var result = new ArrayList<int[]>();
+        collectSortedQuantityVectors(new int[MAX_TITLES], 0, MAX_COPIES, result);
+        return result;
+    }
+
+    private static void collectSortedQuantityVectors(int[] prefix, int length, int maxQuantity, List<int[]> result) {
+        result.add(Arrays.copyOf(prefix, length));
+        if (length == MAX_TITLES) {
+            return;
+        }
+        for (int quantity = 1; quantity <= maxQuantity; quantity++) {
+            prefix[length] = quantity;
+            collectSortedQuantityVectors(prefix, length + 1, quantity, result);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.dscheffer.bookdiscount.service.engine;
+
+import com.dscheffer.bookdiscount.service.PricingBudgetExceededException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntToLongFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OptimalPriceCalculationEngineTest {
+
+    private static final long PRICE_CENTS = 800;
+
+    OptimalPriceCalculationEngine optimalEngine = new OptimalPriceCalculationEngine();
+
+    ReferencePriceCalculationEngine referenceEngine = new ReferencePriceCalculationEngine();
+
+    @Test
+    void testMatchesReferenceEngineForAllSmallCarts() {
+        for (List<Integer> quantities : sortedQuantityVectors(5, 3)) {
+            var cartLines = cartLines(quantities, i -> PRICE_CENTS);
+
+            assertThat(optimalEngine.calculatePrice(cartLines, DiscountTiers.DEFAULT))
+                    .as("quantities %s", quantities)
+                    .isEqualByComparingTo(referenceEngine.calculatePrice(cartLines, DiscountTiers.DEFAULT));
+        }
+    }
+
+    @Test
+    void testMatchesExhaustiveSearchForMixedPrices() {
+        var random = new Random(42);
+        var prices = List.of(800L, 950L, 1299L);
+        for (int i = 0; i < 200; i++) {
+            var quantities = IntStream.range(0, 1 + random.nextInt(6))
+                    .mapToObj(t -> 1 + random.nextInt(3))
+                    .toList();
+            var cartLines = cartLines(quantities, t -> prices.get(random.nextInt(prices.size())));
+
+            assertThat(optimalEngine.calculatePrice(cartLines, DiscountTiers.DEFAULT))
+                    .as("cart %s", cartLines)
+                    .isEqualByComparingTo(ExhaustiveSearch.cheapestPrice(cartLines, DiscountTiers.DEFAULT));
+        }
+    }
+
+    @Test
+    void testMatchesReferenceEngineForAllSmallCartsWithMixedPrices() {
+        var prices = new long[]{1, 799, 1235, 9999};
+        for (List<Integer> quantities : sortedQuantityVectors(4, 2)) {
+            var assignments = (int) Math.pow(prices.length, quantities.size());
+            for (int assignment = 0; assignment < assignments; assignment++) {
+                var priceIndexes = new int[quantities.size()];
+                for (int i = 0, rest = assignment; i < priceIndexes.length; i++, rest /= prices.length) {
+                    priceIndexes[i] = rest % prices.length;
+                }
+                var cartLines = cartLines(quantities, i -> prices[priceIndexes[i]]);
+
+                assertThat(optimalEngine.calculatePrice(cartLines, DiscountTiers.DEFAULT).setScale(2, RoundingMode.HALF_UP))
+                        .as("cart %s", cartLines)
+                        .isEqualTo(referenceEngine.calculatePrice(cartLines, DiscountTiers.DEFAULT).setScale(2, RoundingMode.HALF_UP));
+            }
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("provideCheaperThanReferenceData")
+    void testFindsCheaperGroupingsThanReferenceEngine(
+            String displayName, List<Integer> quantities, List<Long> prices, BigDecimal expectedReferenceResult, BigDecimal expectedResult
+    ) {
+        var cartLines = cartLines(quantities, prices::get);
+
+        assertThat(referenceEngine.calculatePrice(cartLines, DiscountTiers.DEFAULT)).isEqualByComparingTo(expectedReferenceResult);
+        assertThat(optimalEngine.calculatePrice(cartLines, DiscountTiers.DEFAULT)).isEqualByComparingTo(expectedResult)
+                .isEqualByComparingTo(ExhaustiveSearch.cheapestPrice(cartLines, DiscountTiers.DEFAULT));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("provideLargeCartData")
+    void testCalculatePriceForLargeCarts(String displayName, List<Integer> quantities, BigDecimal expectedResult) {
+        var actualResult = optimalEngine.calculatePrice(cartLines(quantities, i -> PRICE_CENTS), DiscountTiers.DEFAULT);
+
+        assertThat(actualResult).isEqualByComparingTo(expectedResult);
+    }
+
+    @Test
+    void testCalculatePriceUsesGivenDiscountTiers() {
+        var discountTiers = DiscountTiers.of(Map.of(2, new BigDecimal("0.5"), 3, new BigDecimal("0.9")));
+        var cartLines = cartLines(List.of(1, 1, 1, 1), i -> PRICE_CENTS);
+
+        assertThat(optimalEngine.calculatePrice(cartLines, discountTiers)).isEqualByComparingTo("16");
+        assertThat(referenceEngine.calculatePrice(cartLines, discountTiers)).isEqualByComparingTo("16");
+    }
+
+    @Test
+    void testCalculatePriceWithSharedMemoMatchesFreshSearch() {
+        var prices = new long[]{800, 950, 1299, 800, 1500};
+        var quantities = new ArrayList<>(List.of(1, 1, 1, 1, 1));
+        var memo = new SolverMemo(1000);
+        var random = new Random(7);
+        for (int click = 0; click < 30; click++) {
+            var title = random.nextInt(quantities.size());
+            quantities.set(title, quantities.get(title) + 1);
+            var cartLines = cartLines(quantities, i -> prices[i]);
+
+            assertThat(optimalEngine.calculatePrice(cartLines, DiscountTiers.DEFAULT, memo))
+                    .as("cart %s", cartLines)
+                    .isEqualByComparingTo(optimalEngine.calculatePrice(cartLines, DiscountTiers.DEFAULT));
+        }
+        assertThat(memo.size()).isPositive().isLessThanOrEqualTo(1000);
+    }
+
+    @Test
+    void testWithSearchListenerReportsOnlyToNewListener() {
+        var searched = new ArrayList<String>();
+        var engine = new OptimalPriceCalculationEngine((GroupingTable) null, (name, generated, feasible) -> searched.add("original"));
+        var cartLines = cartLines(List.of(2, 1, 1), i -> 800 + 100L * i);
+
+        var price = engine.withSearchListener((name, generated, feasible) -> searched.add(name))
+                .calculatePrice(cartLines, DiscountTiers.DEFAULT);
+
+        assertThat(price).isEqualByComparingTo(engine.calculatePrice(cartLines, DiscountTiers.DEFAULT));
+        assertThat(searched).containsExactly("optimal", "original");
+    }
+
+    @Test
+    void testSharedMemoIsDroppedForOtherDiscountTiers() {
+        var memo = new SolverMemo(1000);
+        var cartLines = cartLines(List.of(1, 1, 1, 1), i -> i == 0 ? 1000 : PRICE_CENTS);
+        var discountTiers = DiscountTiers.of(Map.of(2, new BigDecimal("0.5"), 3, new BigDecimal("0.9")));
+
+        optimalEngine.calculatePrice(cartLines, DiscountTiers.DEFAULT, memo);
+
+        assertThat(optimalEngine.calculatePrice(cartLines, discountTiers, memo))
+                .isEqualByComparingTo(referenceEngine.calculatePrice(cartLines, discountTiers));
+    }
+
+    @Test
+    void testReferenceEngineCostEstimateCountsCopiesOfGeneratedCompositions() {
+        var generated = new long[1];
+        var engine = new ReferencePriceCalculationEngine((name, compositions, feasible) -> generated[0] += compositions);
+        var cartLines = cartLines(List.of(3, 2, 2, 1), i -> PRICE_CENTS);
+
+        engine.calculatePrice(cartLines, DiscountTiers.DEFAULT);
+
+        assertThat(engine.estimatedCost(cartLines)).isEqualTo(generated[0] * 8);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("provideRaisedPriceData")
+    void testRaisingUnitPriceOfMixedCartNeverLowersTotal(String displayName, int raisedTitle, BigDecimal expectedResult) {
+        var quantities = List.of(5, 4, 2, 2, 2, 2);
+
+        var actualResult = optimalEngine.calculatePrice(
+                cartLines(quantities, i -> i == raisedTitle ? PRICE_CENTS + 1 : PRICE_CENTS), DiscountTiers.DEFAULT);
+
+        assertThat(actualResult).isEqualByComparingTo(expectedResult)
+                .isGreaterThan(optimalEngine.calculatePrice(cartLines(quantities, i -> PRICE_CENTS), DiscountTiers.DEFAULT));
+    }
+
+    @Test
+    void testRaisingAnyUnitPriceNeverLowersTotal() {
+        var random = new Random(11);
+        var prices = List.of(800L, 950L, 1299L);
+        for (int i = 0; i < 100; i++) {
+            var quantities = IntStream.range(0, 1 + random.nextInt(6))
+                    .mapToObj(t -> 1 + random.nextInt(4))
+                    .toList();
+            var priceCents = quantities.stream().mapToLong(t -> prices.get(random.nextInt(prices.size()))).toArray();
+            var total = optimalEngine.calculatePrice(cartLines(quantities, t -> priceCents[t]), DiscountTiers.DEFAULT);
+
+            for (int raised = 0; raised < quantities.size(); raised++) {
+                var raisedTitle = raised;
+                var cartLines = cartLines(quantities, t -> t == raisedTitle ? priceCents[t] + 1 : priceCents[t]);
+
+                assertThat(optimalEngine.calculatePrice(cartLines, DiscountTiers.DEFAULT))
+                        .as("cart %s", cartLines)
+                        .isGreaterThan(total);
+            }
+        }
+    }
+
+    @Test
+    void testCalculatePriceGivesUpWhenBudgetIsExceeded() {
+        var cartLines = cartLines(List.of(40, 38, 36, 34, 32, 30), i -> PRICE_CENTS + i);
+        var budget = SearchBudget.startingNow(Duration.ofMillis(20));
+
+        assertThatThrownBy(() -> optimalEngine.calculatePrice(cartLines, DiscountTiers.DEFAULT, new SolverMemo(1000), budget))
+                .isInstanceOf(PricingBudgetExceededException.class);
+        assertThat(optimalEngine.estimatedCost(cartLines)).isGreaterThan(1_000_000);
+        assertThat(optimalEngine.estimatedCost(cartLines(List.of(40, 38, 36, 34, 32, 30), i -> PRICE_CENTS)))
+                .isLessThan(1_000_000);
+    }
+
+    private static Stream<Arguments> provideCheaperThanReferenceData() {
+        return Stream.of(
+                Arguments.of("Sechs Titel zum gleichen Preis", List.of(3, 3, 2, 2, 2, 2), List.of(800L, 800L, 800L, 800L, 800L, 800L),
+                        new BigDecimal("89.2"), new BigDecimal("85.6")),
+                Arguments.of("Fünf Titel zu weit auseinanderliegenden Preisen", List.of(3, 3, 2, 2, 2), List.of(9999L, 1235L, 1235L, 799L, 1L),
+                        new BigDecimal("305.758"), new BigDecimal("302.176"))
+        );
+    }
+
+    private static Stream<Arguments> provideLargeCartData() {
+        return Stream.of(
+                Arguments.of("Fünf Bücher je 100 mal", List.of(100, 100, 100, 100, 100), new BigDecimal("3000")),
+                Arguments.of("Fünf Bücher je 101 mal und 100 mal", List.of(101, 101, 101, 100, 100), new BigDecimal("3021.2")),
+                Arguments.of("Ein Buch 500 mal, vier Bücher einmal", List.of(500, 1, 1, 1, 1), new BigDecimal("4022")),
+                Arguments.of("Mehr Titel als Rabattstufen", List.of(5, 4, 2, 2, 2, 2), new BigDecimal("108.8"))
+        );
+    }
+
+    private static Stream<Arguments> provideRaisedPriceData() {
+        return Stream.of(
+                Arguments.of("Titel mit fünf Exemplaren teurer", 0, new BigDecimal("108.8425")),
+                Arguments.of("Titel mit vier Exemplaren teurer", 1, new BigDecimal("108.8325")),
+                Arguments.of("Titel mit zwei Exemplaren teurer", 5, new BigDecimal("108.815"))
+        );
+    }
+
+    private static List<CartLine> cartLines(List<Integer> quantities, IntToLongFunction priceCents) {
+        return IntStream.range(0, quantities.size())
+                .mapToObj(i -> new CartLine(i + 1, priceCents.applyAsLong(i), quantities.get(i)))
+                .sorted(CartLine.BY_QUANTITY_DESC)
+                .toList();
+    }
+
+    private static List<List<Integer>> sortedQuantityVectors(int maxTitles, int maxQuantity) {
+        var result = new ArrayList<List<Integer>>();
+        collectSortedQuantityVectors(new ArrayList<>(), maxTitles, maxQuantity, result);
+        return result;
+    }
+
+    private static void collectSortedQuantityVectors(
+            List<Integer> prefix, int titlesLeft, int maxQuantity, List<List<Integer>> result
+    ) {
+        if (!prefix.isEmpty()) {
+            result.add(List.copyOf(prefix));
+        }
+        if (titlesLeft == 0) {
+            return;
+        }
+        for (int quantity = 1; quantity <= maxQuantity; quantity++) {
+            prefix.add(quantity);
+            collectSortedQuantityVectors(prefix, titlesLeft - 1, quantity, result);
+            prefix.remove(prefix.size() - 1);
+        }
+    }
+}
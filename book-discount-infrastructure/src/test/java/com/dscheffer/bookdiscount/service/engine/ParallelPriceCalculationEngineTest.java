@@ -0,0 +1,102 @@
+package com.dscheffer.bookdiscount.service.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntToLongFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParallelPriceCalculationEngineTest {
+
+    ParallelPriceCalculationEngine parallelEngine = new ParallelPriceCalculationEngine(4);
+
+    OptimalPriceCalculationEngine optimalEngine = new OptimalPriceCalculationEngine();
+
+    @AfterEach
+    void tearDown() {
+        parallelEngine.shutdown();
+    }
+
+    @Test
+    void testCalculatePriceForEmptyCart() {
+        assertThat(parallelEngine.calculatePrice(List.of(), DiscountTiers.DEFAULT)).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void testMatchesOptimalEngineForMixedPrices() {
+        var random = new Random(42);
+        var prices = List.of(1L, 800L, 950L, 1299L, 9999L);
+        for (int i = 0; i < 300; i++) {
+            var quantities = IntStream.range(0, 1 + random.nextInt(6))
+                    .mapToObj(t -> 1 + random.nextInt(4))
+                    .toList();
+            var cartLines = cartLines(quantities, t -> prices.get(random.nextInt(prices.size())));
+
+            assertThat(parallelEngine.calculatePrice(cartLines, DiscountTiers.DEFAULT))
+                    .as("cart %s", cartLines)
+                    .isEqualByComparingTo(optimalEngine.calculatePrice(cartLines, DiscountTiers.DEFAULT));
+        }
+    }
+
+    @Test
+    void testMatchesOptimalEngineForLargeMixedCarts() {
+        var random = new Random(7);
+        var prices = List.of(800L, 950L, 1299L, 1500L);
+        for (int i = 0; i < 10; i++) {
+            var quantities = IntStream.range(0, 5)
+                    .mapToObj(t -> 10 + random.nextInt(15))
+                    .toList();
+            var cartLines = cartLines(quantities, t -> prices.get(random.nextInt(prices.size())));
+
+            assertThat(parallelEngine.calculatePrice(cartLines, DiscountTiers.DEFAULT))
+                    .as("cart %s", cartLines)
+                    .isEqualByComparingTo(optimalEngine.calculatePrice(cartLines, DiscountTiers.DEFAULT));
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("provideLargeCartData")
+    void testCalculatePriceForLargeCarts(String displayName, List<Integer> quantities, BigDecimal expectedResult) {
+        var actualResult = parallelEngine.calculatePrice(cartLines(quantities, i -> 800), DiscountTiers.DEFAULT);
+
+        assertThat(actualResult).isEqualByComparingTo(expectedResult);
+    }
+
+    @Test
+    void testReportsSearchToListener() {
+        var generated = new long[1];
+        var engine = new ParallelPriceCalculationEngine(
+                new ParallelSearchProperties(2), (name, sets, feasible) -> generated[0] += sets);
+        try {
+            engine.calculatePrice(cartLines(List.of(3, 2, 2), i -> 800 + i), DiscountTiers.DEFAULT);
+        } finally {
+            engine.shutdown();
+        }
+
+        assertThat(generated[0]).isPositive();
+    }
+
+    private static Stream<Arguments> provideLargeCartData() {
+        return Stream.of(
+                Arguments.of("Fünf Bücher je 100 mal", List.of(100, 100, 100, 100, 100), new BigDecimal("3000")),
+                Arguments.of("Ein Buch 500 mal, vier Bücher einmal", List.of(500, 1, 1, 1, 1), new BigDecimal("4022")),
+                Arguments.of("Mehr Titel als Rabattstufen", List.of(5, 4, 2, 2, 2, 2), new BigDecimal("108.8"))
+        );
+    }
+
+    private static List<CartLine> cartLines(List<Integer> quantities, IntToLongFunction priceCents) {
+        return IntStream.range(0, quantities.size())
+                .mapToObj(i -> new CartLine(i + 1, priceCents.applyAsLong(i), quantities.get(i)))
+                .sorted(CartLine.BY_QUANTITY_DESC)
+                .toList();
+    }
+}
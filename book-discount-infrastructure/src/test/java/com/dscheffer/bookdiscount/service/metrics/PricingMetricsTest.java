@@ -0,0 +1,87 @@
+package com.dscheffer.bookdiscount.service.metrics;
+
+import com.dscheffer.bookdiscount.service.cache.CartSignature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PricingMetricsTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    PricingMetrics pricingMetrics = new PricingMetrics(
+            meterRegistry, new PricingMetricsProperties(Duration.ofMillis(100), Duration.ofSeconds(10))
+    );
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("provideCalculationTagData")
+    void testRecordCalculationTagsTitlesAndCopies(
+            String displayName,
+            CartSignature signature,
+            String expectedTitles,
+            String expectedCopies
+    ) {
+        pricingMetrics.recordCalculation(signature, 1_000);
+
+        var timer = meterRegistry.get("bookdiscount.pricing.calculation")
+                .tag("titles", expectedTitles)
+                .tag("copies", expectedCopies)
+                .timer();
+        assertThat(timer.count()).isEqualTo(1);
+    }
+
+    @Test
+    void testRecordCalculationCountsSlowCarts() {
+        var signature = signature(3, 2);
+
+        pricingMetrics.recordCalculation(signature, Duration.ofMillis(20).toNanos());
+        pricingMetrics.recordCalculation(signature, Duration.ofMillis(250).toNanos());
+        pricingMetrics.recordCalculation(signature, Duration.ofMillis(300).toNanos());
+
+        assertThat(meterRegistry.get("bookdiscount.pricing.slow").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void testSearchedCountsCandidatesPerEngine() {
+        pricingMetrics.searched("reference", 10, 4);
+        pricingMetrics.searched("reference", 5, 1);
+        pricingMetrics.searched("optimal", 7);
+
+        assertThat(candidates("reference", "generated")).isEqualTo(15);
+        assertThat(candidates("reference", "feasible")).isEqualTo(5);
+        assertThat(candidates("optimal", "generated")).isEqualTo(7);
+        assertThat(meterRegistry.find("bookdiscount.pricing.candidates")
+                .tag("engine", "optimal")
+                .tag("result", "feasible")
+                .counter()).isNull();
+    }
+
+    private double candidates(String engine, String result) {
+        return meterRegistry.get("bookdiscount.pricing.candidates")
+                .tag("engine", engine)
+                .tag("result", result)
+                .counter()
+                .count();
+    }
+
+    private static Stream<Arguments> provideCalculationTagData() {
+        return Stream.of(
+                Arguments.of("Ein Buch einmal", signature(1, 1), "1", "1"),
+                Arguments.of("Fünf Bücher je 4 mal", signature(5, 4), "5", "6-20"),
+                Arguments.of("Zwei Bücher je 60 mal", signature(2, 60), "2", "101+"),
+                Arguments.of("Zwölf Bücher je 2 mal", signature(12, 2), "11+", "21-100")
+        );
+    }
+
+    private static CartSignature signature(int titles, int copiesPerTitle) {
+        return new CartSignature(Collections.nCopies(titles, new CartSignature.Entry(copiesPerTitle, 800)));
+    }
+}
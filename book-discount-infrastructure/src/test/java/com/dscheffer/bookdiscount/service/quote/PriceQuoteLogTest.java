@@ -0,0 +1,132 @@
+package com.dscheffer.bookdiscount.service.quote;
+
+import com.dscheffer.bookdiscount.dto.ShoppingCart;
+import com.dscheffer.bookdiscount.service.engine.OptimalPriceCalculationEngine;
+import com.dscheffer.bookdiscount.service.quote.PriceQuoteLogProperties.Overflow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PriceQuoteLogTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    JdbcTemplate jdbcTemplateMock;
+
+    List<List<PriceQuote>> writtenBatches = new ArrayList<>();
+
+    @Test
+    void testStopWritesEveryQueuedQuoteInBatches() {
+        recordWrittenBatches();
+        var priceQuoteLog = priceQuoteLog(100, Overflow.DROP_NEWEST);
+        for (int quantity = 1; quantity <= 25; quantity++) {
+            priceQuoteLog.record(cart(quantity), new BigDecimal("8.00"), null, 1_000);
+        }
+
+        priceQuoteLog.start();
+        priceQuoteLog.stop();
+
+        assertThat(writtenBatches).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(10));
+        assertThat(writtenBatches.stream().flatMap(List::stream).map(PriceQuote::cart))
+                .containsExactlyElementsOf(Stream.iterate(1, q -> q + 1).limit(25).map(PriceQuoteLogTest::cart).toList());
+        assertThat(writtenBatches.get(0).get(0).engine()).isEqualTo("optimal");
+        assertThat(writtenBatches.get(0).get(0).durationMicros()).isEqualTo(1);
+        assertThat(meterRegistry.get("bookdiscount.quotes.written").counter().count()).isEqualTo(25);
+        assertThat(meterRegistry.get("bookdiscount.quotes.queue.depth").gauge().value()).isZero();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("provideOverflowData")
+    void testRecordAppliesOverflowPolicyWhenQueueIsFull(Overflow overflow, List<Integer> expectedQuantities) {
+        recordWrittenBatches();
+        var priceQuoteLog = priceQuoteLog(2, overflow);
+        for (int quantity = 1; quantity <= 3; quantity++) {
+            priceQuoteLog.record(cart(quantity), new BigDecimal("8.00"), null, 1_000);
+        }
+        assertThat(meterRegistry.get("bookdiscount.quotes.queue.depth").gauge().value()).isEqualTo(2);
+
+        priceQuoteLog.start();
+        priceQuoteLog.stop();
+
+        assertThat(writtenBatches.stream().flatMap(List::stream).map(PriceQuote::cart))
+                .containsExactlyElementsOf(expectedQuantities.stream().map(PriceQuoteLogTest::cart).toList());
+        assertThat(meterRegistry.get("bookdiscount.quotes.dropped").tag("reason", "overflow").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void testWriteFailureDropsBatch() {
+        when(jdbcTemplateMock.batchUpdate(anyString(), anyQuotes(), anyInt(), anyQuoteSetter()))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+        var priceQuoteLog = priceQuoteLog(100, Overflow.DROP_NEWEST);
+        priceQuoteLog.record(cart(1), null, "Unknown ID used!", 1_000);
+        priceQuoteLog.record(cart(2), new BigDecimal("8.00"), null, 1_000);
+
+        priceQuoteLog.start();
+        priceQuoteLog.stop();
+
+        assertThat(meterRegistry.get("bookdiscount.quotes.dropped").tag("reason", "error").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("bookdiscount.quotes.written").counter().count()).isZero();
+    }
+
+    private static Stream<Arguments> provideOverflowData() {
+        return Stream.of(
+                Arguments.of(Overflow.DROP_NEWEST, List.of(1, 2)),
+                Arguments.of(Overflow.DROP_OLDEST, List.of(2, 3)),
+                Arguments.of(Overflow.BLOCK, List.of(1, 2))
+        );
+    }
+
+    private void recordWrittenBatches() {
+        when(jdbcTemplateMock.batchUpdate(anyString(), anyQuotes(), anyInt(), anyQuoteSetter()))
+                .thenAnswer(invocation -> {
+                    writtenBatches.add(List.copyOf(invocation.<Collection<PriceQuote>>getArgument(1)));
+                    return new int[0][];
+                });
+    }
+
+    private static Collection<PriceQuote> anyQuotes() {
+        return any();
+    }
+
+    private static ParameterizedPreparedStatementSetter<PriceQuote> anyQuoteSetter() {
+        return any();
+    }
+
+    private PriceQuoteLog priceQuoteLog(int queueCapacity, Overflow overflow) {
+        return new PriceQuoteLog(
+                jdbcTemplateMock,
+                new PriceQuoteLogProperties(true, queueCapacity, 10, Duration.ofMillis(10), overflow, Duration.ofMillis(10)),
+                new OptimalPriceCalculationEngine(),
+                meterRegistry
+        );
+    }
+
+    private static ShoppingCart cart(int quantity) {
+        return ShoppingCart.of(Map.of(1L, quantity));
+    }
+}
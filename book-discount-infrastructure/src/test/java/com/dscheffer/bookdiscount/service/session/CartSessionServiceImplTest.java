@@ -0,0 +1,166 @@
+package com.dscheffer.bookdiscount.service.session;
+
+import com.dscheffer.bookdiscount.dto.Book;
+import com.dscheffer.bookdiscount.entity.DiscountTierEntity;
+import com.dscheffer.bookdiscount.repository.BookRepository;
+import com.dscheffer.bookdiscount.repository.DiscountTierRepository;
+import com.dscheffer.bookdiscount.service.PriceCalculatorServiceImpl;
+import com.dscheffer.bookdiscount.service.admission.PricingAdmission;
+import com.dscheffer.bookdiscount.service.admission.PricingAdmissionProperties;
+import com.dscheffer.bookdiscount.service.admission.PricingExecutor;
+import com.dscheffer.bookdiscount.service.cache.PriceCache;
+import com.dscheffer.bookdiscount.service.cache.PriceCacheProperties;
+import com.dscheffer.bookdiscount.service.catalog.BookCatalog;
+import com.dscheffer.bookdiscount.service.catalog.DiscountTierTable;
+import com.dscheffer.bookdiscount.service.engine.OptimalPriceCalculationEngine;
+import com.dscheffer.bookdiscount.service.engine.SolverMemo;
+import com.dscheffer.bookdiscount.service.metrics.PricingMetrics;
+import com.dscheffer.bookdiscount.service.metrics.PricingMetricsProperties;
+import com.dscheffer.bookdiscount.service.quote.PriceQuoteLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CartSessionServiceImplTest {
+
+    CartSessionServiceImpl cartSessionService;
+
+    PriceCalculatorServiceImpl priceCalculatorService;
+
+    PricingMetrics pricingMetrics = new PricingMetrics(
+            new SimpleMeterRegistry(), new PricingMetricsProperties(Duration.ofMillis(100), Duration.ofSeconds(10))
+    );
+
+    @Mock
+    BookRepository bookRepositoryMock;
+
+    @Mock
+    PriceQuoteLog priceQuoteLogMock;
+
+    @Mock
+    DiscountTierRepository discountTierRepositoryMock;
+
+    @BeforeEach
+    void setup() {
+        // no price cache, so every change runs the engine
+        var priceCache = new PriceCache(new PriceCacheProperties(0, Duration.ZERO));
+        var bookCatalog = new BookCatalog(bookRepositoryMock);
+        when(bookRepositoryMock.findAllBooks()).thenReturn(List.of(
+                new Book(1L, "Buch1", new BigDecimal("8.00"), null),
+                new Book(2L, "Buch2", new BigDecimal("9.50"), null),
+                new Book(3L, "Buch3", new BigDecimal("12.99"), null),
+                new Book(4L, "Buch4", new BigDecimal("8.00"), null)
+        ));
+        bookCatalog.refresh();
+        when(discountTierRepositoryMock.findAll()).thenReturn(List.of(
+                new DiscountTierEntity(2, new BigDecimal("0.95")),
+                new DiscountTierEntity(3, new BigDecimal("0.90")),
+                new DiscountTierEntity(4, new BigDecimal("0.80")),
+                new DiscountTierEntity(5, new BigDecimal("0.75"))
+        ));
+        var discountTierTable = new DiscountTierTable(discountTierRepositoryMock, priceCache);
+        discountTierTable.reload();
+        priceCalculatorService = new PriceCalculatorServiceImpl(
+                bookCatalog, discountTierTable, new OptimalPriceCalculationEngine(), priceCache, pricingMetrics,
+                new PricingAdmission(new PricingAdmissionProperties(1_000_000, 2, Duration.ZERO, Duration.ofSeconds(10), 0), pricingMetrics),
+                priceQuoteLogMock, new PricingExecutor(2)
+        );
+        cartSessionService = new CartSessionServiceImpl(
+                priceCalculatorService, new CartSessionProperties(10, Duration.ofMinutes(30), 1000)
+        );
+    }
+
+    @Test
+    void testChangeQuantityRepricesLikeAFreshCart() {
+        var session = cartSessionService.create(Map.of(1L, 2, 2L, 1));
+
+        var added = cartSessionService.changeQuantity(session.id(), 3L, 2).orElseThrow();
+        var removed = cartSessionService.changeQuantity(session.id(), 1L, -1).orElseThrow();
+
+        assertThat(added.bookQuantities()).isEqualTo(Map.of(1L, 2, 2L, 1, 3L, 2));
+        assertThat(added.price()).isEqualTo(priceCalculatorService.calculatePrice(Map.of(1L, 2, 2L, 1, 3L, 2)));
+        assertThat(removed.bookQuantities()).isEqualTo(Map.of(1L, 1, 2L, 1, 3L, 2));
+        assertThat(removed.price()).isEqualTo(priceCalculatorService.calculatePrice(Map.of(1L, 1, 2L, 1, 3L, 2)));
+        assertThat(cartSessionService.get(session.id())).contains(removed);
+    }
+
+    @Test
+    void testChangeQuantityReportsGrowingMemory() {
+        var session = cartSessionService.create(Map.of(1L, 1));
+
+        var changed = cartSessionService.changeQuantity(session.id(), 3L, 3).orElseThrow();
+
+        assertThat(changed.estimatedBytes()).isGreaterThan(session.estimatedBytes());
+    }
+
+    @Test
+    void testRemovingAllCopiesDropsTheBook() {
+        var session = cartSessionService.create(Map.of(1L, 1, 2L, 1));
+
+        var changed = cartSessionService.changeQuantity(session.id(), 2L, -5).orElseThrow();
+
+        assertThat(changed.bookQuantities()).isEqualTo(Map.of(1L, 1));
+        assertThat(changed.price()).isEqualByComparingTo("8.00");
+    }
+
+    @Test
+    void testUnknownBookLeavesSessionUnchanged() {
+        var session = cartSessionService.create(Map.of(1L, 1));
+
+        assertThatThrownBy(() -> cartSessionService.changeQuantity(session.id(), 42L, 1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown ID used!");
+        assertThat(cartSessionService.get(session.id())).contains(session);
+    }
+
+    @Test
+    void testTooLargeQuantityLeavesSessionUnchanged() {
+        var session = cartSessionService.create(Map.of(1L, Integer.MAX_VALUE));
+
+        assertThatThrownBy(() -> cartSessionService.changeQuantity(session.id(), 1L, 1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Quantity is too large");
+        assertThat(cartSessionService.get(session.id())).contains(session);
+    }
+
+    @Test
+    void testSessionDeletedWhileRepricingStaysDeleted() {
+        var priceCalculatorSpy = spy(priceCalculatorService);
+        var service = new CartSessionServiceImpl(priceCalculatorSpy, new CartSessionProperties(10, Duration.ofMinutes(30), 1000));
+        var session = service.create(Map.of(1L, 1));
+        doAnswer(invocation -> {
+            service.delete(session.id());
+            return invocation.callRealMethod();
+        }).when(priceCalculatorSpy).calculatePrice(anyMap(), any(SolverMemo.class));
+
+        assertThat(service.changeQuantity(session.id(), 2L, 1)).isEmpty();
+        assertThat(service.get(session.id())).isEmpty();
+    }
+
+    @Test
+    void testDeletedSessionIsGone() {
+        var session = cartSessionService.create(Map.of(1L, 1));
+
+        assertThat(cartSessionService.delete(session.id())).isTrue();
+        assertThat(cartSessionService.get(session.id())).isEmpty();
+        assertThat(cartSessionService.changeQuantity(session.id(), 1L, 1)).isEmpty();
+        assertThat(cartSessionService.delete(session.id())).isFalse();
+    }
+}
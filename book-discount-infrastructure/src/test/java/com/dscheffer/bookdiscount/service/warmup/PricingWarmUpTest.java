@@ -0,0 +1,185 @@
+package com.dscheffer.bookdiscount.service.warmup;
+
+import com.dscheffer.bookdiscount.dto.Book;
+import com.dscheffer.bookdiscount.repository.BookRepository;
+import com.dscheffer.bookdiscount.repository.DiscountTierRepository;
+import com.dscheffer.bookdiscount.service.CoalescingPriceCalculatorService;
+import com.dscheffer.bookdiscount.service.PriceCalculatorService;
+import com.dscheffer.bookdiscount.service.PriceCalculatorServiceImpl;
+import com.dscheffer.bookdiscount.service.admission.PricingAdmission;
+import com.dscheffer.bookdiscount.service.admission.PricingAdmissionProperties;
+import com.dscheffer.bookdiscount.service.admission.PricingExecutor;
+import com.dscheffer.bookdiscount.service.cache.CartSignature;
+import com.dscheffer.bookdiscount.service.cache.PriceCache;
+import com.dscheffer.bookdiscount.service.cache.PriceCacheProperties;
+import com.dscheffer.bookdiscount.service.catalog.BookCatalog;
+import com.dscheffer.bookdiscount.service.catalog.DiscountTierTable;
+import com.dscheffer.bookdiscount.service.engine.CartLine;
+import com.dscheffer.bookdiscount.service.engine.OptimalPriceCalculationEngine;
+import com.dscheffer.bookdiscount.service.engine.PriceCalculationEngine;
+import com.dscheffer.bookdiscount.service.metrics.PricingMetrics;
+import com.dscheffer.bookdiscount.service.metrics.PricingMetricsProperties;
+import com.dscheffer.bookdiscount.service.quote.PriceQuoteLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PricingWarmUpTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    PricingMetrics pricingMetrics = new PricingMetrics(
+            meterRegistry, new PricingMetricsProperties(Duration.ofMillis(100), Duration.ofSeconds(10))
+    );
+
+    PriceCache priceCache = new PriceCache(new PriceCacheProperties(100, Duration.ofHours(1)));
+
+    PriceCalculationEngine engine = spy(new OptimalPriceCalculationEngine());
+
+    BookCatalog bookCatalog;
+
+    PriceCalculatorServiceImpl priceCalculatorServiceImpl;
+
+    PriceCalculatorService priceCalculatorService;
+
+    @Mock
+    BookRepository bookRepositoryMock;
+
+    @Mock
+    DiscountTierRepository discountTierRepositoryMock;
+
+    @Mock
+    PriceQuoteLog priceQuoteLogMock;
+
+    @BeforeEach
+    void setup() {
+        bookCatalog = new BookCatalog(bookRepositoryMock);
+        var discountTierTable = new DiscountTierTable(discountTierRepositoryMock, priceCache);
+        priceCalculatorServiceImpl = new PriceCalculatorServiceImpl(
+                bookCatalog, discountTierTable, engine, priceCache, pricingMetrics,
+                new PricingAdmission(new PricingAdmissionProperties(1_000_000, 2, Duration.ZERO, Duration.ofSeconds(10), 0), pricingMetrics),
+                priceQuoteLogMock, new PricingExecutor(2)
+        );
+        priceCalculatorService = new CoalescingPriceCalculatorService(priceCalculatorServiceImpl, pricingMetrics, priceQuoteLogMock);
+        // the spy reports nowhere already, the warm-up is to search with it
+        lenient().doReturn(engine).when(engine).withSearchListener(any());
+    }
+
+    @Test
+    void testRunSearchesEverySyntheticCartOfCatalogBooksWithoutTrace() {
+        givenCatalog(10);
+        var cachedSignature = CartSignature.of(List.of(new CartLine(1L, 800, 1)));
+        priceCache.get(cachedSignature, () -> new BigDecimal("8.00"));
+        var warmUp = warmUp(new PricingWarmUpProperties(true, 2, 250, Duration.ofMinutes(1)));
+
+        warmUp.run();
+
+        assertThat(warmUp.report().state()).isEqualTo(PricingWarmUp.State.COMPLETED);
+        assertThat(warmUp.report().catalogLoads()).isEqualTo(2);
+        assertThat(warmUp.report().cartsPriced()).isEqualTo(250);
+        // the books have no series, so every cart is one search, none of them answered by a cache
+        verify(engine, times(250)).calculatePrice(anyList(), any(), any(), any());
+        verifyNoInteractions(priceQuoteLogMock);
+        // the shared cache only knows the cart cached above
+        assertThat(priceCache.size()).isEqualTo(1);
+        assertThat(priceCache.hits()).isZero();
+        assertThat(priceCache.misses()).isEqualTo(1);
+        assertThat(meterRegistry.find("bookdiscount.pricing.calculation").timers()).isEmpty();
+        assertThat(meterRegistry.get("bookdiscount.pricing.catalog.lookup").timer().count()).isZero();
+        assertThat(meterRegistry.get("bookdiscount.warmup").tag("result", "completed").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testRunUsesPriceCacheAgainAfterwards() {
+        givenCatalog(1);
+        var warmUp = warmUp(new PricingWarmUpProperties(true, 0, 10, Duration.ofMinutes(1)));
+        warmUp.run();
+
+        priceCalculatorService.calculatePrice(Map.of(1L, 1));
+        priceCalculatorService.calculatePrice(Map.of(1L, 1));
+
+        assertThat(priceCache.size()).isEqualTo(1);
+        assertThat(priceCache.hits()).isEqualTo(1);
+    }
+
+    @Test
+    void testRunStopsAtTimeLimit() {
+        givenCatalog(10);
+        doAnswer(invocation -> {
+            Thread.sleep(5);
+            return invocation.callRealMethod();
+        }).when(engine).calculatePrice(anyList(), any(), any(), any());
+        var warmUp = warmUp(new PricingWarmUpProperties(true, 0, 1_000_000, Duration.ofMillis(50)));
+
+        warmUp.run();
+
+        assertThat(warmUp.report().state()).isEqualTo(PricingWarmUp.State.TIMED_OUT);
+        assertThat(warmUp.report().state().isFinished()).isTrue();
+        assertThat(warmUp.report().cartsPriced()).isPositive().isLessThan(1_000_000);
+        verify(engine, atLeastOnce()).calculatePrice(anyList(), any(), any(), any());
+    }
+
+    @Test
+    void testRunReportsFailureAsFinished() {
+        when(bookRepositoryMock.findAllBooks()).thenThrow(new IllegalStateException("database down"));
+        var warmUp = warmUp(new PricingWarmUpProperties(true, 1, 10, Duration.ofMinutes(1)));
+
+        warmUp.run();
+
+        assertThat(warmUp.report().state()).isEqualTo(PricingWarmUp.State.FAILED);
+        assertThat(warmUp.report().state().isFinished()).isTrue();
+        verify(engine, never()).calculatePrice(anyList(), any(), any(), any());
+    }
+
+    @Test
+    void testNotFinishedBeforeStart() {
+        var warmUp = warmUp(new PricingWarmUpProperties(true, 1, 10, Duration.ofMinutes(1)));
+
+        assertThat(warmUp.report().state().isFinished()).isFalse();
+    }
+
+    @Test
+    void testStartDoesNothingWhenDisabled() {
+        var warmUp = warmUp(new PricingWarmUpProperties(false, 1, 10, Duration.ofMinutes(1)));
+
+        warmUp.start();
+
+        assertThat(warmUp.report().state()).isEqualTo(PricingWarmUp.State.DISABLED);
+        assertThat(warmUp.report().state().isFinished()).isTrue();
+        verifyNoInteractions(bookRepositoryMock, engine);
+    }
+
+    private PricingWarmUp warmUp(PricingWarmUpProperties properties) {
+        return new PricingWarmUp(bookCatalog, priceCalculatorServiceImpl, properties, meterRegistry);
+    }
+
+    private void givenCatalog(int books) {
+        when(bookRepositoryMock.findAllBooks()).thenReturn(LongStream.rangeClosed(1, books)
+                .mapToObj(id -> new Book(id, "Book " + id, new BigDecimal("8.00"), null))
+                .toList());
+        bookCatalog.refresh();
+    }
+}
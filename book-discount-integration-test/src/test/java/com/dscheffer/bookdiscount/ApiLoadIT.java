@@ -0,0 +1,276 @@
+package com.dscheffer.bookdiscount;
+
+import com.dscheffer.bookdiscount.load.OpenModelLoad;
+import com.dscheffer.bookdiscount.load.OpenModelLoad.LoadRequest;
+import com.dscheffer.bookdiscount.load.OpenModelLoad.LoadResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.SoftAssertions.assertSoftly;
+
+/**
+ * Drives {@code /api/price/calculate} and {@code /api/books} of the application on an embedded server with an open
+ * model load and compares the latencies and the throughput with the baselines in {@code load-baselines.properties}.
+ * Runs on H2, so no Docker is needed.
+ * <p>
+ * The load can be changed with the system properties {@code load.rate} in requests per second, {@code load.duration}
+ * and {@code load.warm-up}. Baselines only apply to the rate they were measured at. The measured values are written to
+ * {@code target/load-results.properties}, in the format of the baselines.
+ * <p>
+ * The baselines were measured on one machine and a run takes about a minute, so it only runs with the
+ * {@code performance} profile.
+ */
+@Tag("performance")
+class ApiLoadIT {
+
+    private static final Logger log = LoggerFactory.getLogger(ApiLoadIT.class);
+
+    private static final String PRICE = "price";
+    private static final String BOOKS = "books";
+    private static final double BOOKS_SHARE = 0.2;
+    private static final int SERIES = 25;
+    private static final int BOOKS_PER_SERIES = 20;
+    private static final long SEED = 42;
+    private static final Path RESULTS = Path.of("target", "load-results.properties");
+
+    HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testLatencyAndThroughputStayWithinBaselines() throws Exception {
+        var baselines = Baselines.load();
+        var rate = Double.parseDouble(System.getProperty("load.rate", String.valueOf(baselines.rate())));
+        var duration = Duration.parse(System.getProperty("load.duration", "PT30S"));
+        var warmUp = Duration.parse(System.getProperty("load.warm-up", "PT15S"));
+
+        try (var context = new SpringApplicationBuilder(BookDiscountApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:api-load",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.dscheffer.bookdiscount.ApiLoadIT=INFO"
+        )) {
+            var baseUri = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            var series = importCatalog(baseUri);
+            var requests = new RequestMix(baseUri, series);
+
+            new OpenModelLoad(client, SEED).run(rate, warmUp, requests::next);
+            var result = new OpenModelLoad(client, SEED + 1).run(rate, duration, requests::next);
+
+            log.info("{} requests/s for {}", rate, duration);
+            result.endpoints().values().forEach(endpoint -> log.info("{}", endpoint));
+            writeResults(result);
+
+            var compareWithBaselines = rate == baselines.rate();
+            if (!compareWithBaselines) {
+                log.info("No baselines for {} requests/s, only checking for failures", rate);
+            }
+            assertThat(result.endpoints()).containsOnlyKeys(PRICE, BOOKS);
+            assertSoftly(softly -> result.endpoints().values().forEach(endpoint -> {
+                softly.assertThat(endpoint.failures()).as("%s failures", endpoint.endpoint()).isZero();
+                if (compareWithBaselines) {
+                    var baseline = baselines.of(endpoint.endpoint());
+                    softly.assertThat(endpoint.p50Millis()).as("%s p50 ms", endpoint.endpoint())
+                            .isLessThanOrEqualTo(baseline.p50Millis() * baselines.latencyTolerance());
+                    softly.assertThat(endpoint.p99Millis()).as("%s p99 ms", endpoint.endpoint())
+                            .isLessThanOrEqualTo(baseline.p99Millis() * baselines.latencyTolerance());
+                    softly.assertThat(endpoint.throughput()).as("%s requests/s", endpoint.endpoint())
+                            .isGreaterThanOrEqualTo(baseline.throughput() * baselines.throughputTolerance());
+                }
+            }));
+        }
+    }
+
+    /**
+     * Imports a catalog of several series with different prices, the books of the initial change log stay in the
+     * catalog without a series.
+     *
+     * @return the IDs of the imported books by series
+     */
+    private Collection<List<Long>> importCatalog(String baseUri) throws Exception {
+        var csv = IntStream.range(0, SERIES * BOOKS_PER_SERIES)
+                .mapToObj(i -> String.format(Locale.ROOT, "Band %d,%d.%02d,Reihe %d",
+                        i, 6 + i % 15, i * 37 % 100, i / BOOKS_PER_SERIES))
+                .collect(Collectors.joining("\n"));
+        var imported = client.send(HttpRequest.newBuilder(URI.create(baseUri + "/api/books/import"))
+                .header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString(csv))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        assertThat(imported.statusCode()).isEqualTo(200);
+
+        var books = objectMapper.readTree(client.send(HttpRequest.newBuilder(URI.create(baseUri + "/api/books")).build(),
+                HttpResponse.BodyHandlers.ofString()).body());
+        var series = new TreeMap<String, List<Long>>();
+        books.forEach(book -> {
+            if (book.hasNonNull("series")) {
+                series.computeIfAbsent(book.get("series").asText(), s -> new ArrayList<>()).add(book.get("id").asLong());
+            }
+        });
+        assertThat(series).hasSize(SERIES);
+        return series.values();
+    }
+
+    private void writeResults(LoadResult result) throws IOException {
+        var properties = new Properties();
+        properties.setProperty("rate", String.format(Locale.ROOT, "%.0f", result.requestsPerSecond()));
+        result.endpoints().values().forEach(endpoint -> {
+            properties.setProperty(endpoint.endpoint() + ".p50", String.format(Locale.ROOT, "%.2f", endpoint.p50Millis()));
+            properties.setProperty(endpoint.endpoint() + ".p99", String.format(Locale.ROOT, "%.2f", endpoint.p99Millis()));
+            properties.setProperty(endpoint.endpoint() + ".throughput", String.format(Locale.ROOT, "%.1f", endpoint.throughput()));
+        });
+        Files.createDirectories(RESULTS.getParent());
+        try (OutputStream out = Files.newOutputStream(RESULTS)) {
+            properties.store(out, "Measured by ApiLoadIT");
+        }
+    }
+
+    /**
+     * Mostly pricing requests with carts shaped like real orders, and the catalog the UI loads now and then.
+     */
+    private static class RequestMix {
+
+        private final String baseUri;
+        private final List<List<Long>> series;
+
+        RequestMix(String baseUri, Collection<List<Long>> series) {
+            this.baseUri = baseUri;
+            this.series = List.copyOf(series);
+        }
+
+        LoadRequest next(Random random) {
+            if (random.nextDouble() < BOOKS_SHARE) {
+                return new LoadRequest(BOOKS, HttpRequest.newBuilder(URI.create(baseUri + "/api/books")).build(), 200);
+            }
+            var cart = CartShape.pick(random).cart(series, random);
+            return new LoadRequest(PRICE, HttpRequest.newBuilder(URI.create(baseUri + "/api/price/calculate"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(cart))
+                    .build(), 200);
+        }
+    }
+
+    private enum CartShape {
+
+        /**
+         * A single copy of a single book.
+         */
+        SINGLE(0.35, 1, 1, 1, 1),
+
+        /**
+         * The next few books of a series.
+         */
+        FEW_TITLES(0.30, 1, 2, 3, 1),
+
+        /**
+         * A series bought as a set, now and then with a second copy.
+         */
+        SERIES_SET(0.20, 1, 4, 5, 2),
+
+        /**
+         * Books of two series.
+         */
+        TWO_SERIES(0.10, 2, 2, 4, 3),
+
+        /**
+         * Several copies of a set, like a class or a library orders them.
+         */
+        BULK(0.05, 1, 5, 5, 8);
+
+        private final double share;
+        private final int series;
+        private final int minTitles;
+        private final int maxTitles;
+        private final int maxCopies;
+
+        CartShape(double share, int series, int minTitles, int maxTitles, int maxCopies) {
+            this.share = share;
+            this.series = series;
+            this.minTitles = minTitles;
+            this.maxTitles = maxTitles;
+            this.maxCopies = maxCopies;
+        }
+
+        static CartShape pick(Random random) {
+            var value = random.nextDouble();
+            for (var shape : values()) {
+                if ((value -= shape.share) < 0) {
+                    return shape;
+                }
+            }
+            return SINGLE;
+        }
+
+        String cart(List<List<Long>> catalog, Random random) {
+            return random.ints(0, catalog.size()).distinct().limit(series)
+                    .mapToObj(catalog::get)
+                    .flatMap(books -> {
+                        var first = random.nextInt(books.size());
+                        var titles = minTitles + random.nextInt(maxTitles - minTitles + 1);
+                        return IntStream.range(0, titles).mapToObj(i -> books.get((first + i) % books.size()));
+                    })
+                    .map(bookId -> "{\"bookId\": " + bookId + ", \"quantity\": " + (1 + random.nextInt(maxCopies)) + "}")
+                    .collect(Collectors.joining(", ", "[", "]"));
+        }
+    }
+
+    /**
+     * @param latencyTolerance    factor by which p50 and p99 may exceed their baselines
+     * @param throughputTolerance share of the baseline throughput that has to be reached
+     */
+    private record Baselines(double rate, double latencyTolerance, double throughputTolerance, Properties values) {
+
+        static Baselines load() throws IOException {
+            var properties = new Properties();
+            try (InputStream in = ApiLoadIT.class.getResourceAsStream("/load-baselines.properties")) {
+                properties.load(in);
+            }
+            return new Baselines(
+                    Double.parseDouble(properties.getProperty("rate")),
+                    Double.parseDouble(properties.getProperty("tolerance.latency")),
+                    Double.parseDouble(properties.getProperty("tolerance.throughput")),
+                    properties
+            );
+        }
+
+        Baseline of(String endpoint) {
+            return new Baseline(
+                    Double.parseDouble(values.getProperty(endpoint + ".p50")),
+                    Double.parseDouble(values.getProperty(endpoint + ".p99")),
+                    Double.parseDouble(values.getProperty(endpoint + ".throughput"))
+            );
+        }
+    }
+
+    private record Baseline(double p50Millis, double p99Millis, double throughput) {
+    }
+}
@@ -0,0 +1,128 @@
+package com.dscheffer.bookdiscount;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reads the catalog through {@code /api/books} page by page, revalidated and streamed. Runs on H2, so no Docker is
+ * needed.
+ */
+class BookCatalogApiIT {
+
+    private static final int IMPORTED_BOOKS = 250;
+    private static final int CATALOG_SIZE = 5 + IMPORTED_BOOKS;
+    private static final Pattern NEXT_LINK = Pattern.compile("<(.+)>; rel=\"next\"");
+
+    static ConfigurableApplicationContext context;
+
+    static String baseUri;
+
+    HttpClient client = HttpClient.newHttpClient();
+
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeAll
+    static void startApplication() throws Exception {
+        context = new SpringApplicationBuilder(BookDiscountApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:book-catalog-api",
+                "--spring.jpa.show-sql=false"
+        );
+        baseUri = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        var csv = IntStream.rangeClosed(1, IMPORTED_BOOKS)
+                .mapToObj(i -> "Titel " + i + ",8.00")
+                .collect(Collectors.joining("\n"));
+        var response = HttpClient.newHttpClient().send(HttpRequest.newBuilder(URI.create(baseUri + "/api/books/import"))
+                .header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString(csv))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        assertThat(response.statusCode()).isEqualTo(200);
+    }
+
+    @AfterAll
+    static void stopApplication() {
+        context.close();
+    }
+
+    @Test
+    void testPagesFollowNextLinksThroughWholeCatalog() throws Exception {
+        var ids = new ArrayList<Long>();
+        var pages = 0;
+        var next = baseUri + "/api/books?limit=100";
+        while (next != null) {
+            var response = get(next, null, null);
+            assertThat(response.statusCode()).isEqualTo(200);
+            objectMapper.readTree(response.body()).forEach(book -> ids.add(book.get("id").asLong()));
+            pages++;
+            next = response.headers().firstValue("Link")
+                    .map(link -> {
+                        var matcher = NEXT_LINK.matcher(link);
+                        assertThat(matcher.matches()).isTrue();
+                        return matcher.group(1);
+                    })
+                    .orElse(null);
+        }
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(ids).hasSize(CATALOG_SIZE).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void testUnchangedCatalogIsNotSentAgain() throws Exception {
+        var first = get(baseUri + "/api/books", null, null);
+        var eTag = first.headers().firstValue("ETag").orElseThrow();
+
+        var revalidated = get(baseUri + "/api/books", null, eTag);
+        var pageRevalidated = get(baseUri + "/api/books?limit=10", null, eTag);
+        var streamRevalidated = get(baseUri + "/api/books/stream", "application/x-ndjson", eTag);
+
+        assertThat(objectMapper.readTree(first.body()).size()).isEqualTo(CATALOG_SIZE);
+        assertThat(first.headers().firstValue("Cache-Control")).hasValue("no-cache");
+        assertThat(List.of(revalidated, pageRevalidated, streamRevalidated))
+                .allSatisfy(response -> {
+                    assertThat(response.statusCode()).isEqualTo(304);
+                    assertThat(response.body()).isEmpty();
+                });
+        assertThat(get(baseUri + "/api/books", null, "\"outdated\"").statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    void testStreamsEveryBookAsOneLine() throws Exception {
+        var response = get(baseUri + "/api/books/stream", "application/x-ndjson", null);
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Transfer-Encoding")).hasValue("chunked");
+        var lines = response.body().lines().toList();
+        assertThat(lines).hasSize(CATALOG_SIZE);
+        assertThat(objectMapper.readTree(lines.get(0)).get("name").asText()).isEqualTo("Buch1");
+        assertThat(objectMapper.readTree(lines.get(CATALOG_SIZE - 1)).get("name").asText())
+                .isEqualTo("Titel " + IMPORTED_BOOKS);
+    }
+
+    private HttpResponse<String> get(String uri, String accept, String ifNoneMatch) throws Exception {
+        var request = HttpRequest.newBuilder(URI.create(uri));
+        if (accept != null) {
+            request.header("Accept", accept);
+        }
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,96 @@
+package com.dscheffer.bookdiscount;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Changes the quantities of a cart session through {@code /api/cart-sessions}. Runs on H2, so no Docker is needed.
+ */
+class CartSessionApiIT {
+
+    static ConfigurableApplicationContext context;
+
+    static String baseUri;
+
+    HttpClient client = HttpClient.newHttpClient();
+
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeAll
+    static void startApplication() {
+        context = new SpringApplicationBuilder(BookDiscountApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:cart-session-api",
+                "--spring.jpa.show-sql=false"
+        );
+        baseUri = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    @AfterAll
+    static void stopApplication() {
+        context.close();
+    }
+
+    @Test
+    void testAddAndRemoveChangeQuantities() throws Exception {
+        var id = createSession("[{\"bookId\": 1, \"quantity\": 2}]");
+
+        var added = post("/api/cart-sessions/" + id + "/add", "{\"bookId\": 2, \"quantity\": 1}");
+        var removed = post("/api/cart-sessions/" + id + "/remove", "{\"bookId\": 1, \"quantity\": 1}");
+
+        assertThat(added.statusCode()).isEqualTo(200);
+        assertThat(objectMapper.readTree(added.body()).get("price").decimalValue()).isEqualByComparingTo("23.20");
+        assertThat(removed.statusCode()).isEqualTo(200);
+        assertThat(objectMapper.readTree(removed.body()).get("price").decimalValue()).isEqualByComparingTo("15.20");
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("provideInvalidItemData")
+    void testRejectsInvalidItem(String displayName, String action, String item) throws Exception {
+        var id = createSession("[{\"bookId\": 1, \"quantity\": 2}]");
+
+        var response = post("/api/cart-sessions/" + id + "/" + action, item);
+
+        assertThat(response.statusCode()).isEqualTo(400);
+    }
+
+    private static Stream<Arguments> provideInvalidItemData() {
+        return Stream.of(
+                Arguments.of("Entfernen ohne Menge", "remove", "{\"bookId\": 1}"),
+                Arguments.of("Entfernen ohne Buch", "remove", "{\"quantity\": 1}"),
+                Arguments.of("Entfernen mit negativer Menge", "remove", "{\"bookId\": 1, \"quantity\": -1}"),
+                Arguments.of("Hinzufügen ohne Menge", "add", "{\"bookId\": 1}"),
+                Arguments.of("Hinzufügen mit Menge 0", "add", "{\"bookId\": 1, \"quantity\": 0}"),
+                Arguments.of("Hinzufügen eines unbekannten Buchs", "add", "{\"bookId\": 42, \"quantity\": 1}"),
+                Arguments.of("Hinzufügen über die größte Menge hinaus", "add", "{\"bookId\": 1, \"quantity\": 2147483647}")
+        );
+    }
+
+    private String createSession(String cart) throws Exception {
+        var response = post("/api/cart-sessions", cart);
+        assertThat(response.statusCode()).isEqualTo(201);
+        return objectMapper.readTree(response.body()).get("id").asText();
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create(baseUri + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,94 @@
+package com.dscheffer.bookdiscount;
+
+import com.dscheffer.bookdiscount.dto.CatalogImportResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Imports a large CSV catalog through the API on H2 while carts are being priced, then imports it again with changed
+ * prices. Runs on H2, so no Docker is needed.
+ */
+class CatalogImportIT {
+
+    private static final int BOOKS = 50_000;
+    private static final String CART = """
+            [{"bookId": 1, "quantity": 2}, {"bookId": 2, "quantity": 1}]
+            """;
+
+    HttpClient client = HttpClient.newHttpClient();
+
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testImportUpsertsBooksByNameWhilePricingKeepsWorking() throws Exception {
+        try (var context = new SpringApplicationBuilder(BookDiscountApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:catalog-import",
+                "--spring.jpa.show-sql=false"
+        )) {
+            var baseUri = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            var pricingDone = new CompletableFuture<Void>();
+            var failedPrices = new AtomicInteger();
+            var prices = CompletableFuture.runAsync(() -> {
+                while (!pricingDone.isDone()) {
+                    if (post(baseUri + "/api/price/calculate", "application/json", CART).statusCode() != 200) {
+                        failedPrices.incrementAndGet();
+                    }
+                }
+            });
+
+            var first = importBooks(baseUri, csv(BOOKS, "8.00") + "Buch1,9.00\n");
+            var second = importBooks(baseUri, csv(BOOKS, "8.50"));
+            pricingDone.complete(null);
+            prices.join();
+
+            System.out.printf("%-6s %10s %10s%n", "import", "ms", "rows/s");
+            System.out.printf("%-6s %10d %10d%n", "first", first.durationMillis(), first.rowsPerSecond());
+            System.out.printf("%-6s %10d %10d%n", "second", second.durationMillis(), second.rowsPerSecond());
+
+            assertThat(first.rowsImported()).isEqualTo(BOOKS + 1);
+            assertThat(second.rowsImported()).isEqualTo(BOOKS);
+            assertThat(failedPrices).hasValue(0);
+            var books = objectMapper.readTree(client.send(
+                    HttpRequest.newBuilder(URI.create(baseUri + "/api/books")).build(), HttpResponse.BodyHandlers.ofString()
+            ).body());
+            // the five books of the initial change log plus the imported ones, Buch1 is updated rather than added
+            assertThat(books.size()).isEqualTo(5 + BOOKS);
+            assertThat(books.get(0).get("name").asText()).isEqualTo("Buch1");
+            assertThat(books.get(0).get("price").decimalValue()).isEqualByComparingTo("9.00");
+            assertThat(books.get(BOOKS + 4).get("price").decimalValue()).isEqualByComparingTo("8.50");
+        }
+    }
+
+    private CatalogImportResult importBooks(String baseUri, String csv) throws Exception {
+        var response = post(baseUri + "/api/books/import", "text/csv", csv);
+        assertThat(response.statusCode()).isEqualTo(200);
+        return objectMapper.readValue(response.body(), CatalogImportResult.class);
+    }
+
+    private HttpResponse<String> post(String uri, String contentType, String body) {
+        var request = HttpRequest.newBuilder(URI.create(uri))
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).join();
+    }
+
+    private static String csv(int books, String price) {
+        return IntStream.rangeClosed(1, books)
+                .mapToObj(i -> "Titel " + i + "," + price + (i % 3 == 0 ? ",Reihe " + i % 50 : ""))
+                .collect(Collectors.joining("\n", "name,price,series\n", "\n"));
+    }
+}
@@ -2,6 +2,7 @@ package com.dscheffer.bookdiscount;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -16,6 +17,8 @@ import org.testcontainers.containers.PostgreSQLContainer;
 
 import java.util.stream.Stream;
 
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -62,6 +65,75 @@ public class PriceCalculatorControllerIT {
                 .andExpect(content().string(expectedResult));
     }
 
+    @Test
+    void testCalculateShoppingCartPrices() throws Exception {
+        mockMvc.perform(post("/api/price/calculate/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [
+                                  [
+                                    {
+                                      "bookId": 1,
+                                      "quantity": 1
+                                    },
+                                    {
+                                      "bookId": 2,
+                                      "quantity": 1
+                                    }
+                                  ],
+                                  [
+                                    {
+                                      "bookId": 42,
+                                      "quantity": 1
+                                    }
+                                  ],
+                                  [
+                                    {
+                                      "bookId": 1,
+                                      "quantity": 1
+                                    }
+                                  ]
+                                ]
+                                """)
+                ).andExpect(status().isOk())
+                .andExpect(content().json("""
+                        [
+                          {
+                            "price": 15.20,
+                            "error": null
+                          },
+                          {
+                            "price": null,
+                            "error": "Unknown ID used!"
+                          },
+                          {
+                            "price": 8.00,
+                            "error": null
+                          }
+                        ]
+                        """));
+    }
+
+    @Test
+    void testCalculateShoppingCartPriceStream() throws Exception {
+        mockMvc.perform(post("/api/price/calculate/stream").contentType("application/x-ndjson")
+                        .content("""
+                                [{"bookId": 1, "quantity": 1}, {"bookId": 2, "quantity": 1}]
+                                [{"bookId": 42, "quantity": 1}]
+
+                                not a cart
+                                [{"bookId": 1, "quantity": 1}]
+                                """)
+                ).andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(startsWith("""
+                        {"price":15.20,"error":null}
+                        {"price":null,"error":"Unknown ID used!"}
+                        {"price":null,"error":"Invalid cart:""")))
+                .andExpect(content().string(endsWith("""
+                        {"price":8.00,"error":null}
+                        """)));
+    }
+
     private static Stream<Arguments> provideCalculatePriceData() {
         return Stream.of(
                 Arguments.of(
@@ -115,6 +187,26 @@ public class PriceCalculatorControllerIT {
                         ]
                         """,
                         "51.20"
+                ),
+                Arguments.of(
+                        "Buch 1 doppelt im Warenkorb",
+                        """
+                        [
+                          {
+                            "bookId": 1,
+                            "quantity": 1
+                          },
+                          {
+                            "bookId": 2,
+                            "quantity": 1
+                          },
+                          {
+                            "bookId": 1,
+                            "quantity": 1
+                          }
+                        ]
+                        """,
+                        "23.20"
                 )
         );
     }
@@ -0,0 +1,166 @@
+package com.dscheffer.bookdiscount;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Starts the application in a fresh JVM, like a newly scheduled pod, and measures the time until the readiness probe
+ * reports it is up. If the app module was built with the {@code fast-startup} profile, a start with the AOT
+ * generated context and an AppCDS archive from a training run is measured as well. Runs on H2, so no Docker is needed.
+ * <p>
+ * Takes more than a minute and depends on the machine, so it only runs with the {@code performance} profile.
+ */
+@Tag("performance")
+class StartupTimeIT {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupTimeIT.class);
+
+    private static final int STARTS = 3;
+    private static final Duration MAX_STARTUP = Duration.ofSeconds(60);
+    private static final String AOT_INITIALIZER = "com/dscheffer/bookdiscount/BookDiscountApplication__ApplicationContextInitializer.class";
+
+    @TempDir
+    Path tempDir;
+
+    HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void testStartsUntilReadyWithinLimit() throws Exception {
+        var jvm = medianStartup("jvm", List.of());
+        log.info("{}", jvm);
+
+        assertThat(jvm.readyMillis()).as("ms until ready").isLessThan(MAX_STARTUP.toMillis());
+    }
+
+    @Test
+    void testFastStartupIsReadySoonerThanPlainJvm() throws Exception {
+        assumeTrue(StartupTimeIT.class.getClassLoader().getResource(AOT_INITIALIZER) != null,
+                "app module was not built with the fast-startup profile");
+        var archive = tempDir.resolve("book-discount.jsa");
+        train(archive);
+
+        var jvm = medianStartup("jvm", List.of());
+        var fastStartup = medianStartup("fast-startup",
+                List.of("-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=" + archive));
+
+        log.info("{}", jvm);
+        log.info("{}", fastStartup);
+
+        assertThat(fastStartup.readyMillis()).as("ms until ready with fast startup, %s", jvm)
+                .isLessThan(jvm.readyMillis());
+    }
+
+    /**
+     * Runs the application until its context is refreshed and dumps the classes it loaded, like the first start of
+     * the fast-startup image does.
+     */
+    private void train(Path archive) throws Exception {
+        var process = start(List.of(
+                "-Dspring.aot.enabled=true", "-XX:ArchiveClassesAtExit=" + archive, "-Dspring.context.exit=onRefresh"
+        ), freePort());
+
+        assertThat(process.waitFor(MAX_STARTUP.toSeconds(), TimeUnit.SECONDS)).isTrue();
+        assertThat(archive).exists();
+    }
+
+    private StartupResult medianStartup(String mode, List<String> jvmFlags) throws Exception {
+        var readyMillis = new long[STARTS];
+        for (int i = 0; i < STARTS; i++) {
+            readyMillis[i] = startUntilReady(jvmFlags);
+        }
+        Arrays.sort(readyMillis);
+        return new StartupResult(mode, readyMillis[STARTS / 2]);
+    }
+
+    private long startUntilReady(List<String> jvmFlags) throws Exception {
+        var port = freePort();
+        var readiness = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/health/readiness")).build();
+        var start = System.nanoTime();
+        var process = start(jvmFlags, port);
+        try {
+            while (System.nanoTime() - start < MAX_STARTUP.toNanos()) {
+                assertThat(process.isAlive()).as("application exited, see %s", tempDir).isTrue();
+                if (isReady(readiness)) {
+                    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                }
+                Thread.sleep(20);
+            }
+            return MAX_STARTUP.toMillis();
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private boolean isReady(HttpRequest readiness) throws InterruptedException {
+        try {
+            return client.send(readiness, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private Process start(List<String> jvmFlags, int port) throws IOException {
+        var command = new ArrayList<String>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmFlags);
+        command.addAll(List.of(
+                "-cp", applicationClassPath(),
+                BookDiscountApplication.class.getName(),
+                "--server.port=" + port,
+                "--spring.datasource.url=jdbc:h2:mem:startup",
+                "--spring.jpa.show-sql=false"
+        ));
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(Files.createTempFile(tempDir, "startup", ".log").toFile())
+                .start();
+    }
+
+    /**
+     * The test class path without the test classes, whose controllers would otherwise be picked up as well.
+     * Failsafe runs the tests from a manifest-only jar and passes the real class path separately.
+     */
+    private static String applicationClassPath() {
+        var classPath = System.getProperty("surefire.test.class.path", System.getProperty("java.class.path"));
+        return Arrays.stream(classPath.split(File.pathSeparator))
+                .filter(entry -> !Path.of(entry).endsWith("test-classes"))
+                .collect(Collectors.joining(File.pathSeparator));
+    }
+
+    private static int freePort() throws IOException {
+        try (var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private record StartupResult(String mode, long readyMillis) {
+
+        @Override
+        public String toString() {
+            return String.format("%s: ready after %d ms", mode, readyMillis);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.dscheffer.bookdiscount;
+
+import com.dscheffer.loadtest.BlockingPriceController;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fires a burst of pricing requests at the {@link BlockingPriceController}, once against the default Tomcat worker
+ * pool and once with the {@code virtual-threads} profile. Only the concurrency is asserted, the latencies depend on
+ * the machine and are logged. Runs on H2, so no Docker is needed.
+ */
+class ThreadModeLoadIT {
+
+    private static final Logger log = LoggerFactory.getLogger(ThreadModeLoadIT.class);
+
+    private static final int PLATFORM_THREADS = 20;
+    private static final int REQUESTS = 400;
+    private static final String CART = """
+            {"1": 2, "2": 2, "3": 2, "4": 1, "5": 1}
+            """;
+
+    @Test
+    void testVirtualThreadsServeBurstWithMoreConcurrency() throws Exception {
+        var platform = runBurst("platform-threads");
+        var virtual = runBurst("virtual-threads");
+
+        log.info("{}", platform);
+        log.info("{}", virtual);
+
+        assertThat(platform.maxInFlight()).as("requests in flight on %d platform threads", PLATFORM_THREADS)
+                .isLessThanOrEqualTo(PLATFORM_THREADS);
+        // the pool can only work off its share of the burst one blocking call after another
+        assertThat(platform.totalMillis()).as("burst duration on %d platform threads", PLATFORM_THREADS)
+                .isGreaterThanOrEqualTo(REQUESTS / PLATFORM_THREADS * BlockingPriceController.BLOCKING_CALL.toMillis());
+        assertThat(virtual.maxInFlight()).as("requests in flight on virtual threads")
+                .isGreaterThan(PLATFORM_THREADS);
+    }
+
+    private static BurstResult runBurst(String profile) throws Exception {
+        try (var context = new SpringApplicationBuilder(BookDiscountApplication.class, BlockingPriceController.class)
+                .profiles(profile)
+                .run(
+                        "--server.port=0",
+                        "--server.tomcat.threads.max=" + PLATFORM_THREADS,
+                        "--spring.datasource.url=jdbc:h2:mem:" + profile,
+                        "--spring.jpa.show-sql=false"
+                );
+             var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var controller = context.getBean(BlockingPriceController.class);
+            var uri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/load-test/price");
+            var client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(executor).build();
+
+            // warm up the JIT, so the burst measures waiting rather than compiling
+            send(client, uri, REQUESTS);
+            controller.resetMaxInFlight();
+
+            var start = System.nanoTime();
+            var latencies = send(client, uri, REQUESTS);
+            var totalMillis = (System.nanoTime() - start) / 1_000_000;
+            Arrays.sort(latencies);
+            return new BurstResult(
+                    profile,
+                    controller.maxInFlight(),
+                    latencies[latencies.length / 2],
+                    latencies[latencies.length * 99 / 100],
+                    totalMillis
+            );
+        }
+    }
+
+    private static long[] send(HttpClient client, URI uri, int requests) {
+        var request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(CART))
+                .build();
+        var responses = new ArrayList<CompletableFuture<Long>>(requests);
+        for (int i = 0; i < requests; i++) {
+            var sent = System.nanoTime();
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
+                assertThat(response.statusCode()).isEqualTo(200);
+                assertThat(response.body()).isEqualTo("51.20");
+                return (System.nanoTime() - sent) / 1_000_000;
+            }));
+        }
+        return responses.stream().mapToLong(CompletableFuture::join).toArray();
+    }
+
+    private record BurstResult(String profile, int maxInFlight, long p50Millis, long p99Millis, long totalMillis) {
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d in flight, p50 %d ms, p99 %d ms, total %d ms",
+                    profile, maxInFlight, p50Millis, p99Millis, totalMillis);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.dscheffer.bookdiscount.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Sends requests at a given average arrival rate no matter how fast the responses come back, with exponentially
+ * distributed gaps like independent users produce (open model). Latency is measured from the moment a request was
+ * due rather than from when it was actually sent, so a server that stalls cannot hide its queueing delay by slowing
+ * the load down (coordinated omission).
+ */
+public class OpenModelLoad {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final HttpClient client;
+    private final Random random;
+
+    public OpenModelLoad(HttpClient client, long seed) {
+        this.client = client;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Sends requests for the given duration and waits for all responses.
+     *
+     * @param requests creates the next request from the random source of this load
+     */
+    public LoadResult run(double requestsPerSecond, Duration duration, Function<Random, LoadRequest> requests) {
+        var latencies = new ConcurrentHashMap<String, Histogram>();
+        var failures = new ConcurrentHashMap<String, LongAdder>();
+        var responses = new ArrayList<CompletableFuture<?>>();
+        var meanGapNanos = TimeUnit.SECONDS.toNanos(1) / requestsPerSecond;
+        var start = System.nanoTime();
+        var end = start + duration.toNanos();
+        var due = start;
+        while ((due += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos)) < end) {
+            var request = requests.apply(random);
+            awaitNanoTime(due);
+            var dueAt = due;
+            var endpointLatencies = latencies.computeIfAbsent(request.endpoint(), e -> new ConcurrentHistogram(SIGNIFICANT_DIGITS));
+            var endpointFailures = failures.computeIfAbsent(request.endpoint(), e -> new LongAdder());
+            responses.add(client.sendAsync(request.request(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        endpointLatencies.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - dueAt));
+                        if (error != null || response.statusCode() != request.expectedStatus()) {
+                            endpointFailures.increment();
+                        }
+                    }));
+        }
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).exceptionally(error -> null).join();
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        var endpoints = new TreeMap<String, EndpointResult>();
+        latencies.forEach((endpoint, histogram) ->
+                endpoints.put(endpoint, new EndpointResult(endpoint, histogram, failures.get(endpoint).sum(), elapsed)));
+        return new LoadResult(requestsPerSecond, elapsed, endpoints);
+    }
+
+    private static void awaitNanoTime(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * @param endpoint       name the latencies are recorded under
+     * @param expectedStatus any other status counts as a failure
+     */
+    public record LoadRequest(String endpoint, HttpRequest request, int expectedStatus) {
+    }
+
+    /**
+     * @param elapsed from the first request being due until the last response arrived
+     */
+    public record LoadResult(double requestsPerSecond, Duration elapsed, Map<String, EndpointResult> endpoints) {
+    }
+
+    /**
+     * @param latencies in microseconds
+     */
+    public record EndpointResult(String endpoint, Histogram latencies, long failures, Duration elapsed) {
+
+        public long requests() {
+            return latencies.getTotalCount();
+        }
+
+        public double p50Millis() {
+            return percentileMillis(50);
+        }
+
+        public double p99Millis() {
+            return percentileMillis(99);
+        }
+
+        public double maxMillis() {
+            return latencies.getMaxValue() / 1000.0;
+        }
+
+        /**
+         * @return completed requests per second, lower than the arrival rate if the server falls behind
+         */
+        public double throughput() {
+            return requests() * 1e9 / elapsed.toNanos();
+        }
+
+        private double percentileMillis(double percentile) {
+            return latencies.getValueAtPercentile(percentile) / 1000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d requests, %d failures, p50 %.2f ms, p99 %.2f ms, max %.2f ms, %.1f requests/s",
+                    endpoint, requests(), failures, p50Millis(), p99Millis(), maxMillis(), throughput());
+        }
+    }
+}
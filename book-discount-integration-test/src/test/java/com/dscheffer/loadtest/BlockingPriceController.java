@@ -0,0 +1,56 @@
+package com.dscheffer.loadtest;
+
+import com.dscheffer.bookdiscount.repository.BookRepository;
+import com.dscheffer.bookdiscount.service.PriceCalculatorService;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Prices a cart after blocking for a while, like a slow database call would, and counts the requests it serves at
+ * the same time. It lies outside the packages the application scans, so only tests that pass it as a source register
+ * {@code /load-test/price}.
+ */
+@RestController
+public class BlockingPriceController {
+
+    public static final Duration BLOCKING_CALL = Duration.ofMillis(200);
+
+    private final BookRepository bookRepository;
+    private final PriceCalculatorService priceCalculatorService;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    public BlockingPriceController(BookRepository bookRepository, PriceCalculatorService priceCalculatorService) {
+        this.bookRepository = bookRepository;
+        this.priceCalculatorService = priceCalculatorService;
+    }
+
+    @PostMapping("/load-test/price")
+    public BigDecimal price(@RequestBody Map<Long, Integer> bookQuantities) throws InterruptedException {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            bookRepository.count();
+            Thread.sleep(BLOCKING_CALL);
+            return priceCalculatorService.calculatePrice(bookQuantities);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return the most requests served at the same time since the last reset
+     */
+    public int maxInFlight() {
+        return maxInFlight.get();
+    }
+
+    public void resetMaxInFlight() {
+        maxInFlight.set(0);
+    }
+}
@@ -7,18 +7,31 @@ import { Box, Card, Container, Typography } from '@mui/material';
 import Dialog from '@mui/material/Dialog';
 import DialogTitle from '@mui/material/DialogTitle';
 
-function calculatePrice(event, setCalculateDisabled, quantities, setPriceResult, setDialogOpen) {
-    event.preventDefault();
-    setCalculateDisabled(true);
-    fetch('/api/price/calculate', {
+function postCart(url, quantities) {
+    return fetch(url, {
         method: 'POST',
         headers: {
             'Accept': 'application/json',
             'Content-Type': 'application/json',
         },
         body: JSON.stringify(quantities)
-    }).then(result => result.text())
-    .then(setPriceResult)
+    }).then(response => response.ok
+        ? response
+        : response.json()
+            .catch(() => ({}))
+            .then(problem => Promise.reject(new Error(problem.detail || response.statusText))));
+}
+
+function calculatePrice(event, setCalculateDisabled, quantities, setPriceResult, setDialogOpen) {
+    event.preventDefault();
+    setCalculateDisabled(true);
+    // the suggestion is optional, the price is shown even if it cannot be calculated
+    const additions = postCart('/api/price/calculate/additions', quantities)
+        .then(response => response.json())
+        .then(result => result.additions, () => []);
+    Promise.all([postCart('/api/price/calculate', quantities).then(response => response.text()), additions])
+    .then(([price, additions]) => setPriceResult({price, additions}))
+    .catch(error => setPriceResult({error: error.message}))
     .then(() => setDialogOpen(true))
     .finally(() => setCalculateDisabled(false));
 }
@@ -72,7 +85,9 @@ export default function CalculatePriceForm() {
 
     const [quantities, setQuantities] = useState([]);
     const [dialogOpen, setDialogOpen] = useState(false);
-    const [priceResult, setPriceResult] = useState(0);
+    const [priceResult, setPriceResult] = useState({price: 0, additions: []});
+    const bestAddition = priceResult.additions && priceResult.additions.find(a => a.saving > 0);
+    const bestAdditionBook = bestAddition && data && data.find(b => b.id === bestAddition.bookId);
 
     return (
         <Box>
@@ -92,9 +107,16 @@ export default function CalculatePriceForm() {
                 fullWidth={true}>
                 <DialogTitle>Preisrechner Ergebnis</DialogTitle>
                 <Container sx= {{
-                    height: 75
+                    minHeight: 75
                 }}>
-                    <Typography variant="body1">{priceResult}€</Typography>
+                    <Typography variant="body1">
+                        {priceResult.error ? 'Preis konnte nicht berechnet werden: ' + priceResult.error : priceResult.price + '€'}
+                    </Typography>
+                    {bestAdditionBook && (
+                        <Typography variant="body2">
+                            {'Mit einem weiteren Exemplar von ' + bestAdditionBook.name + ' sparen Sie ' + bestAddition.saving + '€'}
+                        </Typography>
+                    )}
                 </Container>
             </Dialog>
         </Box>